@@ -0,0 +1,304 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+public class Benchmarks {
+
+    /* This program measures the speed of the hot paths of the model and the computer player, so a
+     * change that slows them down is noticed before it is released.
+     *
+     * Each benchmark is an operation run over and over, first for a number of warmup iterations so
+     * the JIT has compiled it, then for a number of measured iterations. The mean number of operations
+     * per second and its standard deviation over the measured iterations are printed. Operations
+     * return a number that is added to a sink, so the JIT can't remove them as dead code.
+     *
+     * The benchmarks are:
+     *      getValidMoves       valid moves of every piece of the player to move
+     *      movePiece           2 king moves, then both taken back with takeBack
+     *      otherPieceCanJump   whether another piece can jump, asked for every piece of the player to move
+     *      generateMoves       every legal move of the player to move, as packed moves
+     *      findBestMove        a computer move limited to SEARCH_NODES positions
+     * Every benchmark except movePiece runs over the same positions, reached by random moves from the
+     * start and the same every run.
+     *
+     * Results can be saved to a file, and a later run compared against it. Benchmarks that became
+     * slower by more than the threshold are reported, and the program exits with status 1.
+     *
+     * Usage: java Benchmarks [-save file] [-compare file] [-threshold percent] [name...]
+     *      -save       writes the results to the file
+     *      -compare    compares the results with the ones saved in the file
+     *      -threshold  slowdown in percent counted as a regression, default 10
+     *      name        only runs benchmarks whose names contain one of the names, default all
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 5;
+    private static final long WARMUP_MILLIS = 200; //length of each warmup iteration
+    private static final long MEASURED_MILLIS = 500; //length of each measured iteration
+    private static final int NUMBER_OF_POSITIONS = 16;
+    private static final long SEARCH_NODES = 20000; //node limit of each findBestMove
+
+    private static long sink = 0; //sum of every operation's result, so none is optimised away
+
+    /* An operation to measure, run returns any number depending on the work it did */
+    private static abstract class Benchmark {
+        final String name;
+
+        Benchmark(String name) {
+            this.name = name;
+        }
+
+        abstract int run();
+    }
+
+    /**PUBLIC********************************************/
+    /* runs the benchmarks, prints the results, and saves or
+    /* compares them if asked
+    /****************************************************/
+    public static void main(String[] args) throws IOException {
+        File saveFile = null;
+        File compareFile = null;
+        double threshold = 10;
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-save"))
+                saveFile = new File(args[++i]);
+            else if (args[i].equals("-compare"))
+                compareFile = new File(args[++i]);
+            else if (args[i].equals("-threshold"))
+                threshold = Double.parseDouble(args[++i]);
+            else
+                names.add(args[i]);
+        }
+
+        Properties baseline = new Properties();
+        if (compareFile != null) {
+            InputStream in = new FileInputStream(compareFile);
+            try {
+                baseline.load(in);
+            }
+            finally {
+                in.close();
+            }
+        }
+
+        Properties results = new Properties();
+        boolean regressed = false;
+        System.out.println("benchmark                     ops/s       +-   baseline   change");
+        for (Benchmark benchmark : createBenchmarks()) {
+            if (!isSelected(benchmark.name, names))
+                continue;
+            double[] result = measure(benchmark);
+            results.setProperty(benchmark.name, Double.toString(result[0]));
+
+            String line = String.format("%-20s %14.0f %8.0f", benchmark.name, result[0], result[1]);
+            String saved = baseline.getProperty(benchmark.name);
+            if (saved != null) {
+                double change = (result[0] / Double.parseDouble(saved) - 1) * 100;
+                line += String.format(" %10.0f %+7.1f%%", Double.parseDouble(saved), change);
+                if (change < -threshold) {
+                    line += "  REGRESSION";
+                    regressed = true;
+                }
+            }
+            System.out.println(line);
+        }
+
+        if (saveFile != null) {
+            OutputStream out = new FileOutputStream(saveFile);
+            try {
+                results.store(out, "Benchmarks results, operations per second");
+            }
+            finally {
+                out.close();
+            }
+        }
+
+        //printed so the sink is used, it means nothing
+        System.out.println("(sink " + sink + ")");
+        if (regressed)
+            System.exit(1);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns true if no names were passed or the name
+    /* contains one of them
+    /*===================================================*/
+    private static boolean isSelected(String name, List<String> names) {
+        if (names.isEmpty())
+            return true;
+        for (String part : names)
+            if (name.contains(part))
+                return true;
+        return false;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* runs the warmup and measured iterations, and returns
+    /* the mean operations per second and its deviation
+    /*===================================================*/
+    private static double[] measure(Benchmark benchmark) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++)
+            runIteration(benchmark, WARMUP_MILLIS);
+
+        double[] rates = new double[MEASURED_ITERATIONS];
+        double mean = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            rates[i] = runIteration(benchmark, MEASURED_MILLIS);
+            mean += rates[i] / MEASURED_ITERATIONS;
+        }
+        double variance = 0;
+        for (double rate : rates)
+            variance += (rate - mean) * (rate - mean) / MEASURED_ITERATIONS;
+        return new double[] {mean, Math.sqrt(variance)};
+    }
+
+    /*==PRIVATE==========================================*/
+    /* runs the operation for the passed time, and returns
+    /* the operations per second. The clock is only read
+    /* between batches, so reading it isn't measured
+    /*===================================================*/
+    private static double runIteration(Benchmark benchmark, long millis) {
+        long operations = 0;
+        long result = 0;
+        int batch = 1;
+        long start = System.nanoTime();
+        long end = start + millis * 1000000;
+        long now = start;
+        do {
+            long batchStart = now;
+            for (int i = 0; i < batch; i++)
+                result += benchmark.run();
+            operations += batch;
+            now = System.nanoTime();
+
+            //grow the batch until a batch takes about a millisecond
+            if (now - batchStart < 1000000 && batch < (1 << 20))
+                batch *= 2;
+        } while (now < end);
+        sink += result;
+        return operations * 1e9 / (now - start);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns every benchmark
+    /*===================================================*/
+    private static Benchmark[] createBenchmarks() {
+        final CheckersModel[] positions = createPositions();
+        final int[][][] pieces = new int[positions.length][][];
+        for (int i = 0; i < positions.length; i++)
+            pieces[i] = getPiecesToMove(positions[i]);
+        final long[] moves = new long[CheckersModel.MAX_MOVES];
+
+        //only kings far from each other, so neither move can be a jump
+        final CheckersModel kings = new CheckersModel();
+        kings.setPiece(new int[] {7, 0}, "WHITE", true);
+        kings.setPiece(new int[] {0, 1}, "BLACK", true);
+
+        final SearchEngine engine = new SearchEngine(SearchEngine.MAX_PLY, 4);
+        engine.setNodeLimit(SEARCH_NODES);
+
+        return new Benchmark[] {
+            new Benchmark("getValidMoves") {
+                private int next = 0;
+
+                int run() {
+                    int i = this.next++ % positions.length;
+                    int count = 0;
+                    for (int[] loc : pieces[i]) {
+                        int[][] validMoves = positions[i].getValidMoves(loc);
+                        if (validMoves != null)
+                            count += validMoves.length;
+                    }
+                    return count;
+                }
+            },
+            new Benchmark("movePiece") {
+                int run() {
+                    kings.movePiece(new int[] {7, 0}, new int[] {6, 1});
+                    kings.movePiece(new int[] {0, 1}, new int[] {1, 0});
+                    int pieces = kings.getWhitePieces();
+                    kings.takeBack();
+                    kings.takeBack();
+                    return pieces;
+                }
+            },
+            new Benchmark("otherPieceCanJump") {
+                private int next = 0;
+
+                int run() {
+                    int i = this.next++ % positions.length;
+                    int count = 0;
+                    for (int[] loc : pieces[i])
+                        if (positions[i].otherPieceCanJump(loc))
+                            count++;
+                    return count;
+                }
+            },
+            new Benchmark("generateMoves") {
+                private int next = 0;
+
+                int run() {
+                    return positions[this.next++ % positions.length].generateMoves(moves);
+                }
+            },
+            new Benchmark("findBestMove") {
+                private int next = 0;
+
+                int run() {
+                    return (int) engine.findBestMove(positions[this.next++ % positions.length]);
+                }
+            }
+        };
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the locations of the pieces of the player
+    /* whose turn it is
+    /*===================================================*/
+    private static int[][] getPiecesToMove(CheckersModel model) {
+        String colour = model.isWhiteTurn ? "WHITE" : "BLACK";
+        List<int[]> pieces = new ArrayList<int[]>();
+        for (int row = 0; row < 8; row++)
+            for (int col = 0; col < 8; col++) {
+                int[] loc = {row, col};
+                if (model.isValidLocation(loc) && colour.equals(model.getPieceColour(loc)))
+                    pieces.add(loc);
+            }
+        return pieces.toArray(new int[pieces.size()][]);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns positions reached by 4 to 35 random moves
+    /* from the start, the same every run
+    /*===================================================*/
+    private static CheckersModel[] createPositions() {
+        Random random = new Random(1);
+        long[] moves = new long[CheckersModel.MAX_MOVES];
+        CheckersModel[] positions = new CheckersModel[NUMBER_OF_POSITIONS];
+        for (int i = 0; i < NUMBER_OF_POSITIONS; i++) {
+            CheckersModel model = new CheckersModel();
+            model.defaultBoard();
+            int numberOfRandomMoves = 4 + random.nextInt(32);
+            for (int j = 0; j < numberOfRandomMoves; j++) {
+                int numberOfMoves = model.generateMoves(moves);
+                if (numberOfMoves == 0)
+                    break;
+                model.makeMove(moves[random.nextInt(numberOfMoves)]);
+            }
+            positions[i] = new CheckersModel(model);
+        }
+        return positions;
+    }
+}
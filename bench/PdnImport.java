@@ -0,0 +1,43 @@
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+public class PdnImport {
+
+    /* This program reads a PDN file of any size, one game at a time, and appends every legal game to a
+     * GameArchive, so public game collections can be analysed like the games played on our servers.
+     * Games with an illegal move are skipped and counted, and the last one's problem is printed.
+     *
+     * Usage: java PdnImport pdnFile archiveFile
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    /**PUBLIC********************************************/
+    /* imports the games and prints how many were read
+    /****************************************************/
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2)
+            throw new IllegalArgumentException("usage: java PdnImport pdnFile archiveFile");
+
+        PdnReader reader = new PdnReader(new FileReader(args[0]));
+        GameArchive archive = new GameArchive(new File(args[1]));
+        long start = System.nanoTime();
+        int games = 0;
+        try {
+            while (reader.nextGame()) {
+                archive.append(reader.getStart(), reader.getMoves(), reader.getNumberOfMoves(), reader.getResult(), 0);
+                games++;
+            }
+        } finally {
+            archive.close();
+        }
+        long millis = (System.nanoTime() - start) / 1000000;
+
+        System.out.println(String.format("%d games imported, %d skipped, in %d ms", games, reader.getSkippedGames(), millis));
+        if (reader.getLastError() != null)
+            System.out.println("last skipped game: " + reader.getLastError());
+    }
+}
@@ -0,0 +1,79 @@
+public class Perft {
+
+    /* This program checks the move generator by counting every sequence of moves (perft) from the
+     * starting position to a given depth, and comparing the counts with the known ones for 8x8
+     * checkers. A wrong count means moves are missing or illegal moves are generated.
+     *
+     * A depth is one player's whole turn, so a double (or triple etc) jump counts once however many
+     * jumps it takes, the same as in the published counts. Each packed move is a whole turn, so a
+     * depth is one move.
+     *
+     * Usage: java Perft [depth]
+     *      depth   deepest depth counted, default 10. Counts are known up to depth 13.
+     *
+     * The program exits with status 1 if any count is wrong.
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    //known number of move sequences from the starting position, indexed by depth
+    private static final long[] EXPECTED = {1L, 7L, 49L, 302L, 1469L, 7361L, 36768L, 179740L, 845931L,
+            3963680L, 18391564L, 85242128L, 388623673L, 1766623630L};
+
+    private final long[][] moveLists = new long[SearchEngine.MAX_PLY + 1][CheckersModel.MAX_MOVES]; //one move list per depth
+
+    /**PUBLIC********************************************/
+    /* counts each depth up to the passed one, printing the
+    /* count, whether it is correct, and the time taken
+    /****************************************************/
+    public static void main(String[] args) {
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        Perft perft = new Perft();
+        boolean allCorrect = true;
+
+        System.out.println("depth           nodes       ms   result");
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            CheckersModel model = new CheckersModel();
+            model.defaultBoard();
+            long start = System.nanoTime();
+            long nodes = perft.count(model, depth);
+            long millis = (System.nanoTime() - start) / 1000000;
+
+            String result = "unknown";
+            if (depth < EXPECTED.length) {
+                result = nodes == EXPECTED[depth] ? "ok" : "WRONG, expected " + EXPECTED[depth];
+                allCorrect &= nodes == EXPECTED[depth];
+            }
+            System.out.println(String.format("%5d %15d %8d   %s", depth, nodes, millis, result));
+        }
+
+        if (!allCorrect)
+            System.exit(1);
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the number of move sequences of the passed
+    /* depth from the model's position
+    /****************************************************/
+    public long count(CheckersModel model, int depth) {
+        if (depth == 0)
+            return 1;
+
+        long[] moves = this.moveLists[depth];
+        int numberOfMoves = model.generateMoves(moves);
+
+        //the last turn's moves needn't be made to be counted
+        if (depth == 1)
+            return numberOfMoves;
+
+        long nodes = 0;
+        for (int i = 0; i < numberOfMoves; i++) {
+            model.makeMove(moves[i]);
+            nodes += count(model, depth - 1);
+            model.unmakeMove();
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,270 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ServerLoad {
+
+    /* This program stands in for the clients of a CheckersServer, to check it keeps up with many games.
+     * Unless a host is given, it starts a server of its own on a free port.
+     *
+     * Each connection first starts its share of the games with NEW, then plays random legal moves in
+     * them with MOVE, sending a batch of commands before reading their replies. It keeps a copy of every
+     * game, to choose the moves and to check the server's replies: the position the server sends back
+     * must be the copy's. Finished games are ended and new ones started. Last, each connection asks for
+     * a few of the computer's moves with AI. The games started, moves made per second, and time taken by
+     * the computer's moves are printed, with the Metrics of a server started here; any wrong reply stops the
+     * program.
+     *
+     * Usage: java ServerLoad [-host name] [-port n] [-connections n] [-games n] [-moves n] [-ai n]
+     *                        [-batch n] [-active n]
+     *      -host           server to connect to, default a server started here
+     *      -port           port of the server, default CheckersServer.DEFAULT_PORT
+     *      -connections    number of connections, default 8
+     *      -games          number of games started, shared between the connections, default 10000
+     *      -moves          number of random moves made, shared between the connections, default 200000
+     *      -ai             number of computer moves asked for on each connection, default 4
+     *      -batch          commands sent before reading their replies, default 64
+     *      -active         most games the server started here keeps in memory, default 1000, so most
+     *                      moves read a stored game back
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    private String host = null;
+    private int port = CheckersServer.DEFAULT_PORT;
+    private int numberOfConnections = 8;
+    private int numberOfGames = 10000;
+    private int numberOfMoves = 200000;
+    private int aiMoves = 4;
+    private int batch = 64;
+    private int maxActive = 1000;
+
+    /**PUBLIC********************************************/
+    /* runs the load and prints the results
+    /****************************************************/
+    public static void main(String[] args) throws Exception {
+        ServerLoad load = new ServerLoad();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-host"))
+                load.host = args[++i];
+            else if (args[i].equals("-port"))
+                load.port = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-connections"))
+                load.numberOfConnections = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-games"))
+                load.numberOfGames = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-moves"))
+                load.numberOfMoves = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-ai"))
+                load.aiMoves = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-batch"))
+                load.batch = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-active"))
+                load.maxActive = Integer.parseInt(args[++i]);
+            else
+                throw new IllegalArgumentException("unknown option " + args[i]);
+        }
+
+        //a server of our own, if none was given
+        CheckersServer server = null;
+        SessionStore games = null;
+        if (load.host == null) {
+            File spill = File.createTempFile("ServerLoad", ".ckar");
+            games = new SessionStore(spill, load.maxActive, 60000);
+            server = new CheckersServer(0, Runtime.getRuntime().availableProcessors(), games);
+            final CheckersServer running = server;
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        running.run();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }, "CheckersServer");
+            thread.setDaemon(true);
+            thread.start();
+            load.host = "localhost";
+            load.port = server.getPort();
+        }
+
+        try {
+            load.run();
+            if (games != null) {
+                System.out.println(String.format("server kept %d games in memory and %d on disk", games.getActiveCount(),
+                        games.getStoredCount()));
+                System.out.print(Metrics.getInstance().getReport());
+            }
+        } finally {
+            if (server != null) {
+                server.close();
+                games.close();
+            }
+        }
+    }
+
+    /*==PRIVATE==========================================*/
+    /* runs every connection at once on a thread of its
+    /* own, and prints the totals
+    /*===================================================*/
+    private void run() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(this.numberOfConnections);
+        try {
+            List<Future<long[]>> futures = new ArrayList<Future<long[]>>();
+            for (int i = 0; i < this.numberOfConnections; i++) {
+                final int connection = i;
+                futures.add(threads.submit(new Callable<long[]>() {
+                    public long[] call() throws IOException {
+                        return play(connection);
+                    }
+                }));
+            }
+
+            //add up the connections' games, nanoseconds starting them, moves, nanoseconds moving, AI moves and nanoseconds
+            long[] totals = new long[6];
+            for (Future<long[]> future : futures) {
+                long[] result = future.get();
+                for (int i = 0; i < totals.length; i++)
+                    totals[i] = i % 2 == 1 ? Math.max(totals[i], result[i]) : totals[i] + result[i];
+            }
+            System.out.println(String.format("%d games started in %d ms, %.0f games/s", totals[0], totals[1] / 1000000,
+                    totals[0] * 1e9 / Math.max(1, totals[1])));
+            System.out.println(String.format("%d moves in %d ms, %.0f moves/s", totals[2], totals[3] / 1000000,
+                    totals[2] * 1e9 / Math.max(1, totals[3])));
+            System.out.println(String.format("%d computer moves, %.1f ms each on %d connections", totals[4],
+                    totals[5] / 1e6 / Math.max(1, totals[4] / this.numberOfConnections), this.numberOfConnections));
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    /*==PRIVATE==========================================*/
+    /* plays one connection's share of the load, returns
+    /* the games started and nanoseconds taken, the moves
+    /* made and nanoseconds taken, and the same for the
+    /* computer's moves
+    /*===================================================*/
+    private long[] play(int connection) throws IOException {
+        Random random = new Random(connection);
+        long[] legalMoves = new long[CheckersModel.MAX_MOVES];
+        try (Socket socket = new Socket(this.host, this.port)) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+
+            //start the connection's games
+            int numberOfGames = this.numberOfGames / this.numberOfConnections
+                    + (connection < this.numberOfGames % this.numberOfConnections ? 1 : 0);
+            long[] ids = new long[Math.max(1, numberOfGames)];
+            CheckersModel[] models = new CheckersModel[ids.length];
+            long start = System.nanoTime();
+            for (int first = 0; first < ids.length; first += this.batch) {
+                int last = Math.min(ids.length, first + this.batch);
+                for (int i = first; i < last; i++)
+                    out.write("NEW\n");
+                out.flush();
+                for (int i = first; i < last; i++) {
+                    ids[i] = Long.parseLong(expectOk(in.readLine()));
+                    models[i] = newModel();
+                }
+            }
+            long startNanos = System.nanoTime() - start;
+
+            //random moves in random games, checking the position sent back
+            int numberOfMoves = this.numberOfMoves / this.numberOfConnections;
+            int[] played = new int[this.batch];
+            String[] expected = new String[this.batch]; //position after each move of the batch
+            start = System.nanoTime();
+            for (int done = 0; done < numberOfMoves; ) {
+                int count = Math.min(this.batch, numberOfMoves - done);
+                StringBuilder commands = new StringBuilder();
+                for (int i = 0; i < count; i++) {
+                    int game = random.nextInt(ids.length);
+                    played[i] = game;
+                    long move = legalMoves[random.nextInt(models[game].generateMoves(legalMoves))];
+                    commands.append("MOVE ").append(ids[game]).append(' ').append(PdnWriter.moveToString(models[game], move)).append('\n');
+                    models[game].makeMove(move);
+                    expected[i] = PdnWriter.toFen(models[game]) + " ";
+
+                    //a finished game is ended and replaced, which ends the batch since the new game's number is needed
+                    if (models[game].isGameOver()) {
+                        commands.append("END ").append(ids[game]).append("\nNEW\n");
+                        models[game] = newModel();
+                        ids[game] = -1;
+                        count = i + 1;
+                    }
+                }
+                out.write(commands.toString());
+                out.flush();
+                for (int i = 0; i < count; i++) {
+                    String reply = expectOk(in.readLine());
+                    if (ids[played[i]] == -1) {
+                        expectOk(in.readLine());
+                        ids[played[i]] = Long.parseLong(expectOk(in.readLine()));
+                    }
+                    else if (!reply.startsWith(expected[i]))
+                        throw new IOException("wrong position " + reply + " for " + expected[i]);
+                }
+                done += count;
+            }
+            long moveNanos = System.nanoTime() - start;
+
+            //the computer's moves, one at a time
+            start = System.nanoTime();
+            int aiMovesMade = 0;
+            for (int i = 0; i < this.aiMoves; i++) {
+                int game = random.nextInt(ids.length);
+                if (models[game].isGameOver())
+                    continue;
+                out.write("AI " + ids[game] + "\n");
+                out.flush();
+                String[] reply = expectOk(in.readLine()).split(" ");
+                long move = PdnReader.findMove(models[game], reply[0]);
+                if (move == SearchEngine.NO_MOVE)
+                    throw new IOException("illegal computer move " + reply[0]);
+                models[game].makeMove(move);
+                aiMovesMade++;
+            }
+            long aiNanos = System.nanoTime() - start;
+
+            out.write("QUIT\n");
+            out.flush();
+            return new long[] {ids.length, startNanos, numberOfMoves, moveNanos, aiMovesMade, aiNanos};
+        }
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns a model set to the starting position
+    /*===================================================*/
+    private static CheckersModel newModel() {
+        CheckersModel model = new CheckersModel();
+        model.setPosition(0xFFF00000, 0x00000FFF, 0, true);
+        return model;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the reply after its OK, or throws if the
+    /* server replied otherwise
+    /*===================================================*/
+    private static String expectOk(String reply) throws IOException {
+        if (reply == null)
+            throw new IOException("connection closed by the server");
+        if (!reply.startsWith("OK"))
+            throw new IOException("server replied " + reply);
+        return reply.length() > 3 ? reply.substring(3) : "";
+    }
+}
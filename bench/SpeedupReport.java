@@ -0,0 +1,86 @@
+import java.util.Random;
+
+public class SpeedupReport {
+
+    /* This program measures how much faster the SearchEngine reaches a fixed depth with more
+     * threads, so machines can be sized for the computer player.
+     *
+     * For each thread count from 1 to the maximum, a fresh engine searches the same set of
+     * positions (the starting position and positions reached by random moves from it) to the same
+     * depth. The time taken, nodes per second, and speedup over 1 thread are printed as a table.
+     *
+     * Usage: java SpeedupReport [depth] [maxThreads] [positions]
+     *      depth       depth every position is searched to, default 16
+     *      maxThreads  largest thread count measured, default the number of processors
+     *      positions   number of positions searched per thread count, default 8
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    /**PUBLIC********************************************/
+    /* runs the measurements and prints the table
+    /****************************************************/
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int numberOfPositions = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        CheckersModel[] positions = createPositions(numberOfPositions);
+
+        //warm up the JIT, so the single threaded run isn't measured before compilation
+        search(positions, Math.max(1, depth - 4), 1);
+
+        System.out.println("depth " + depth + ", " + numberOfPositions + " positions");
+        System.out.println("threads       ms        nodes/s   speedup");
+        long singleThreadNanos = 0;
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            long[] result = search(positions, depth, threads);
+            if (threads == 1)
+                singleThreadNanos = result[0];
+            System.out.println(String.format("%7d %8d %14d %9.2f", threads, result[0] / 1000000,
+                    result[1] * 1000000000L / Math.max(1, result[0]), (double) singleThreadNanos / result[0]));
+        }
+    }
+
+    /*==PRIVATE==========================================*/
+    /* searches every position with a fresh engine, and
+    /* returns the total time in nanoseconds and the nodes
+    /*===================================================*/
+    private static long[] search(CheckersModel[] positions, int depth, int threads) {
+        SearchEngine engine = new SearchEngine(depth);
+        engine.setThreads(threads);
+        long nodes = 0;
+        long start = System.nanoTime();
+        for (CheckersModel position : positions) {
+            engine.findBestMove(position);
+            nodes += engine.getNodes();
+        }
+        long nanos = System.nanoTime() - start;
+        engine.shutdown();
+        return new long[] {nanos, nodes};
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the starting position followed by positions
+    /* reached by 4 to 15 random moves, the same every run
+    /*===================================================*/
+    private static CheckersModel[] createPositions(int numberOfPositions) {
+        Random random = new Random(1);
+        long[] moves = new long[CheckersModel.MAX_MOVES];
+        CheckersModel[] positions = new CheckersModel[numberOfPositions];
+        for (int i = 0; i < numberOfPositions; i++) {
+            CheckersModel model = new CheckersModel();
+            model.defaultBoard();
+            int numberOfRandomMoves = i == 0 ? 0 : 4 + random.nextInt(12);
+            for (int j = 0; j < numberOfRandomMoves; j++) {
+                int numberOfMoves = model.generateMoves(moves);
+                if (numberOfMoves == 0)
+                    break;
+                model.makeMove(moves[random.nextInt(numberOfMoves)]);
+            }
+            positions[i] = new CheckersModel(model);
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,297 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class Tournament {
+
+    /* This program plays games between two computer players without the GUI, to check the engine's
+     * strength and speed after a change. Player A and player B are SearchEngines that may be set up
+     * differently, for example an old and a new depth, or the default and a tuned set of EvaluationWeights.
+     *
+     * Games are played in pairs from the same opening, each player taking white once, so neither
+     * gains from a lucky opening. The opening is a number of random moves from the start, different
+     * for every pair and the same every run. Every game runs on its own thread, a virtual thread
+     * when the Java version has them, otherwise a thread from a pool the size of the processor count.
+     * Each engine has a small transposition table of its own, so thousands of games fit in memory.
+     *
+     * A game is a draw if MAX_QUIET_TURNS turns go by without a jump or a man (non-king) moving, or
+     * after MAX_TURNS turns. A player who can't move loses, even when the turn that left them without a
+     * move was the last one allowed.
+     *
+     * As each game ends, a line is written to the results file and flushed:
+     *      game,opening,white,black,result,turns,whiteMsPerMove,blackMsPerMove
+     * where white and black are A or B and result is 1-0, 0-1 or 1/2-1/2 (white's score first). When
+     * every game has ended, player A's wins, draws and losses are printed. With -archive, every game's
+     * moves from the start, opening included, are also appended to a GameArchive, and with -pdn they are
+     * written to a PDN file.
+     *
+     * Usage: java Tournament [-games n] [-a depth] [-b depth] [-nodes n] [-millis n]
+     *                        [-opening turns] [-table megabytes] [-out file] [-archive file] [-pdn file]
+     *                        [-weightsA file] [-weightsB file]
+     *      -games      number of games, rounded up to an even number, default 100
+     *      -a, -b      search depth of player A and player B, default 8 each
+     *      -nodes      node limit of every move, default 0 (no limit)
+     *      -millis     time limit of every move, default 0 (no limit)
+     *      -opening    number of random opening turns, default 4
+     *      -table      transposition table megabytes of each engine, default 1
+     *      -out        results file, default tournament.csv
+     *      -archive    game archive the games are appended to, default none
+     *      -pdn        PDN file the games are written to, default none
+     *      -weightsA, -weightsB    weight file of player A and player B, default EvaluationWeights.getDefault()
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    private static final int MAX_TURNS = 400; //a game this long is a draw
+    private static final int MAX_QUIET_TURNS = 80; //turns without a jump or a man moving before a draw
+    private static final long OPENING_SEED = 0x546F75726E6579L; //seed of the random openings
+
+    //game results
+    private static final int WHITE_WINS = GameArchive.WHITE_WINS;
+    private static final int BLACK_WINS = GameArchive.BLACK_WINS;
+    private static final int DRAW = GameArchive.DRAW;
+
+    private int depthA = 8;
+    private int depthB = 8;
+    private long nodeLimit = 0;
+    private long timeLimit = 0;
+    private int openingTurns = 4;
+    private int tableMegabytes = 1;
+    private EvaluationWeights weightsA = EvaluationWeights.getDefault();
+    private EvaluationWeights weightsB = EvaluationWeights.getDefault();
+
+    private PrintWriter results; //file each game's result is written to as it ends
+    private GameArchive archive; //archive each game is appended to as it ends, null if none
+    private PdnWriter pdn; //PDN file each game is written to as it ends, null if none
+    private final AtomicInteger winsA = new AtomicInteger();
+    private final AtomicInteger drawsA = new AtomicInteger();
+    private final AtomicInteger lossesA = new AtomicInteger();
+
+    /**PUBLIC********************************************/
+    /* plays the games and prints player A's score
+    /****************************************************/
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        Tournament tournament = new Tournament();
+        int numberOfGames = 100;
+        String fileName = "tournament.csv";
+        String archiveName = null;
+        String pdnName = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-games"))
+                numberOfGames = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-a"))
+                tournament.depthA = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-b"))
+                tournament.depthB = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-nodes"))
+                tournament.nodeLimit = Long.parseLong(args[++i]);
+            else if (args[i].equals("-millis"))
+                tournament.timeLimit = Long.parseLong(args[++i]);
+            else if (args[i].equals("-opening"))
+                tournament.openingTurns = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-table"))
+                tournament.tableMegabytes = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-out"))
+                fileName = args[++i];
+            else if (args[i].equals("-archive"))
+                archiveName = args[++i];
+            else if (args[i].equals("-pdn"))
+                pdnName = args[++i];
+            else if (args[i].equals("-weightsA"))
+                tournament.weightsA = EvaluationWeights.load(new File(args[++i]));
+            else if (args[i].equals("-weightsB"))
+                tournament.weightsB = EvaluationWeights.load(new File(args[++i]));
+            else
+                throw new IllegalArgumentException("unknown option " + args[i]);
+        }
+
+        if (archiveName != null)
+            tournament.archive = new GameArchive(new File(archiveName));
+        if (pdnName != null)
+            tournament.pdn = new PdnWriter(new FileWriter(pdnName));
+        long start = System.nanoTime();
+        try {
+            tournament.play((numberOfGames + 1) / 2 * 2, fileName);
+        } finally {
+            if (tournament.archive != null)
+                tournament.archive.close();
+            if (tournament.pdn != null)
+                tournament.pdn.close();
+        }
+        long millis = (System.nanoTime() - start) / 1000000;
+
+        int wins = tournament.winsA.get();
+        int draws = tournament.drawsA.get();
+        int losses = tournament.lossesA.get();
+        int games = wins + draws + losses;
+        System.out.println(String.format("A (depth %d) vs B (depth %d): +%d =%d -%d, A scored %.1f%%",
+                tournament.depthA, tournament.depthB, wins, draws, losses, (wins + draws / 2.0) * 100 / games));
+        System.out.println(String.format("%d games in %d ms, %.1f games/s", games, millis, games * 1000.0 / Math.max(1, millis)));
+    }
+
+    /**PUBLIC********************************************/
+    /* plays the passed number of games at once, writing
+    /* their results to the passed file
+    /****************************************************/
+    public void play(int numberOfGames, String fileName) throws IOException, InterruptedException, ExecutionException {
+        this.results = new PrintWriter(new FileWriter(fileName));
+        this.results.println("game,opening,white,black,result,turns,whiteMsPerMove,blackMsPerMove");
+        ExecutorService games = createExecutor();
+        try {
+            Future<?>[] futures = new Future<?>[numberOfGames];
+            for (int i = 0; i < numberOfGames; i++) {
+                final int game = i;
+                futures[i] = games.submit(new Callable<Void>() {
+                    public Void call() throws IOException {
+                        playGame(game);
+                        return null;
+                    }
+                });
+            }
+
+            //wait for every game, a game that failed throws its exception here
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            games.shutdownNow();
+            this.results.close();
+        }
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns an executor with a virtual thread per task
+    /* if the Java version has them, otherwise a pool with
+    /* a thread per processor
+    /*===================================================*/
+    private static ExecutorService createExecutor() {
+        try {
+            Method virtualThreads = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtualThreads.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    /*==PRIVATE==========================================*/
+    /* plays one game, player A is white in even numbered
+    /* games, and records its result
+    /*===================================================*/
+    private void playGame(int game) throws IOException {
+        int opening = game / 2;
+        boolean aIsWhite = game % 2 == 0;
+        SearchEngine white = createEngine(aIsWhite ? this.depthA : this.depthB, aIsWhite ? this.weightsA : this.weightsB);
+        SearchEngine black = createEngine(aIsWhite ? this.depthB : this.depthA, aIsWhite ? this.weightsB : this.weightsA);
+
+        CheckersModel model = new CheckersModel();
+        model.defaultBoard();
+        long[] moves = new long[this.openingTurns + MAX_TURNS]; //every move from the start, for the archive
+        int numberOfMoves = playOpening(model, new Random(OPENING_SEED + opening), moves);
+
+        long[] searchNanos = new long[2]; //time spent choosing moves by white and black
+        int[] searches = new int[2]; //number of moves chosen by white and black
+        int turns = 0;
+        int quietTurns = 0;
+        int result = DRAW;
+        while (turns < MAX_TURNS && quietTurns < MAX_QUIET_TURNS) {
+            if (model.isGameOver()) {
+                result = model.winner().equals("WHITE") ? WHITE_WINS : BLACK_WINS;
+                break;
+            }
+            boolean isWhiteTurn = model.isWhiteTurn;
+
+            //play the whole turn, any second jumps are part of the move
+            int side = isWhiteTurn ? 0 : 1;
+            long start = System.nanoTime();
+            long move = (isWhiteTurn ? white : black).findBestMove(model);
+            searchNanos[side] += System.nanoTime() - start;
+            searches[side]++;
+            boolean quiet = !Move.isJump(move) && (model.getKingPieces() & (1 << Move.getFrom(move))) != 0;
+            model.makeMove(move);
+            moves[numberOfMoves++] = move;
+            turns++;
+            quietTurns = quiet ? quietTurns + 1 : 0;
+        }
+
+        //the last turn may have left the opponent without a move, which is a win rather than a draw
+        if (result == DRAW && model.isGameOver())
+            result = model.winner().equals("WHITE") ? WHITE_WINS : BLACK_WINS;
+        white.shutdown();
+        black.shutdown();
+
+        //player A's score
+        if (result == DRAW)
+            this.drawsA.incrementAndGet();
+        else if ((result == WHITE_WINS) == aIsWhite)
+            this.winsA.incrementAndGet();
+        else
+            this.lossesA.incrementAndGet();
+
+        String line = String.format("%d,%d,%s,%s,%s,%d,%.3f,%.3f", game, opening, aIsWhite ? "A" : "B",
+                aIsWhite ? "B" : "A", result == WHITE_WINS ? "1-0" : result == BLACK_WINS ? "0-1" : "1/2-1/2",
+                turns, searchNanos[0] / 1e6 / Math.max(1, searches[0]), searchNanos[1] / 1e6 / Math.max(1, searches[1]));
+        synchronized (this.results) {
+            this.results.println(line);
+            this.results.flush();
+        }
+
+        CheckersModel start = new CheckersModel();
+        start.defaultBoard();
+        if (this.archive != null)
+            this.archive.append(start, moves, numberOfMoves, result, System.currentTimeMillis());
+
+        //PDN calls the player who moves first Black, so white here is PDN's Black
+        if (this.pdn != null) {
+            Map<String, String> tags = new LinkedHashMap<String, String>();
+            tags.put("Event", "Tournament");
+            tags.put("Round", Integer.toString(game + 1));
+            tags.put("Black", aIsWhite ? "A (depth " + this.depthA + ")" : "B (depth " + this.depthB + ")");
+            tags.put("White", aIsWhite ? "B (depth " + this.depthB + ")" : "A (depth " + this.depthA + ")");
+            synchronized (this.pdn) {
+                this.pdn.writeGame(tags, start, moves, numberOfMoves, result);
+                this.pdn.flush();
+            }
+        }
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns an engine searching to the passed depth
+    /* with the passed weights and the tournament's limits
+    /*===================================================*/
+    private SearchEngine createEngine(int depth, EvaluationWeights weights) {
+        SearchEngine engine = new SearchEngine(depth, this.tableMegabytes);
+        engine.setWeights(weights);
+        engine.setNodeLimit(this.nodeLimit);
+        engine.setTimeLimit(this.timeLimit);
+        return engine;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* plays the opening's random turns, stopping early if
+    /* the player to move can't move. The moves played are
+    /* put into played, and their number returned
+    /*===================================================*/
+    private int playOpening(CheckersModel model, Random random, long[] played) {
+        long[] moves = new long[CheckersModel.MAX_MOVES];
+        for (int turn = 0; turn < this.openingTurns; turn++) {
+            int numberOfMoves = model.generateMoves(moves);
+            if (numberOfMoves == 0)
+                return turn;
+            played[turn] = moves[random.nextInt(numberOfMoves)];
+            model.makeMove(played[turn]);
+        }
+        return this.openingTurns;
+    }
+}
@@ -0,0 +1,516 @@
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class Tuner {
+
+    /* This program fits the EvaluationWeights to the results of played games, Texel style: a position's
+     * score, passed through a logistic curve, should predict how the game it came from ended. It reads
+     * games from GameArchives, such as Tournament's self-play archives or PdnImport's, or straight from
+     * PDN files, and writes the fitted weights to a weight file the engine reads, see EvaluationWeights.
+     *
+     * Every position of every finished game, after the opening turns, is labelled with the game's result
+     * from white's point of view: 1 for a white win, 0 for a loss, 1/2 for a draw. A position where the
+     * player to move must jump is resolved first, the way the SearchEngine does past its depth limit: a
+     * search of jumps only, scored with the starting weights, finds the quiet position the jumps lead to,
+     * and that position is the one scored. Positions with no moves, or that end in none, are left out.
+     *
+     * The score is a dot product of the weights with the position's features (EvaluationWeights.getFeatures),
+     * so the features are counted once, kept as a list of the non-zero ones per position, and every pass
+     * over millions of positions is only multiplying and adding. The loss is the mean logistic loss
+     * (cross entropy) of 1 / (1 + e^(-score / scale)) against the labels. The scale is fitted first, with
+     * the starting weights, so that they predict as well as they can; the weights are then moved down the
+     * loss's gradient with Adam steps, in real numbers, and rounded when written.
+     *
+     * Only the independent weights are fitted, the square tables and mobility (EvaluationWeights.isIndependent).
+     * The other terms, man, king, backRank and so on, are sums of table entries, so fitting them too would
+     * leave the fit without a single answer and let the weights drift along the directions that don't change
+     * the score. They are kept at their starting values, and the tables fitted hold the change: a man's value
+     * moving from 100 to 110 shows as every manSquare entry rising by 10. The loss also has a regularisation
+     * term, regularise times the sum of each fitted weight's squared change from its start, so weights of
+     * squares or patterns the games rarely show stay near where they started.
+     *
+     * Resolving and counting features, and each pass computing the loss and its gradient, are split over
+     * a ForkJoinPool by ranges of games or positions, each range's sums being added when it joins. Every
+     * holdout'th game is kept out of the fitting, and the loss on its positions is printed as the fitting
+     * goes, so weights that only fit the games they were fitted to can be seen.
+     *
+     * Usage: java Tuner [-out file] [-weights file] [-iterations n] [-rate r] [-regularise r] [-skip turns]
+     *                   [-holdout n] [-threads n] gameFile...
+     *      gameFile    a GameArchive, or a PDN file if its name ends in .pdn
+     *      -out        weight file written, default EvaluationWeights.DEFAULT_FILE
+     *      -weights    weight file the fitting starts from, default EvaluationWeights.getDefault()
+     *      -iterations number of gradient steps, default 500
+     *      -rate       largest change of a weight in one step, default 1
+     *      -regularise weight of the squared changes in the loss, default 1e-6
+     *      -skip       opening turns of every game left out, default 8
+     *      -holdout    every holdout'th game is only used to check the fit, default 10, 0 for none
+     *      -threads    number of threads, default the number of processors
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    private static final int GAMES_PER_TASK = 16; //games resolved by one fork/join task
+    private static final int POSITIONS_PER_TASK = 8192; //positions summed by one fork/join task
+    private static final int MAX_RESOLVE_PLY = 32; //more jumps in a row than there are pieces
+    private static final int PROGRESS_ITERATIONS = 50; //iterations between printed losses
+    private static final double[] LABELS = new double[4]; //white's score, by GameArchive result
+
+    static {
+        LABELS[GameArchive.WHITE_WINS] = 1;
+        LABELS[GameArchive.BLACK_WINS] = 0;
+        LABELS[GameArchive.DRAW] = 0.5;
+    }
+
+    private int iterations = 500;
+    private double rate = 1;
+    private double regularise = 1e-6;
+    private int skipTurns = 8;
+    private int holdout = 10;
+    private EvaluationWeights weights = EvaluationWeights.getDefault(); //weights the fitting starts from
+    private ForkJoinPool pool;
+
+    //a finished game's starting position, moves and result
+    private static class Game {
+        final int white;
+        final int black;
+        final int kings;
+        final boolean whiteToMove;
+        final long[] moves;
+        final int result;
+
+        Game(CheckersModel start, long[] moves, int result) {
+            this.white = start.getWhitePieces();
+            this.black = start.getBlackPieces();
+            this.kings = start.getKingPieces();
+            this.whiteToMove = start.isWhiteTurn;
+            this.moves = moves;
+            this.result = result;
+        }
+    }
+
+    //labelled positions, each a list of its non-zero features packed as index << 16 | count
+    private static class Positions {
+        int[] features = new int[1 << 12];
+        int numberOfFeatures = 0;
+        int[] ends = new int[1 << 8]; //end of each position's features
+        byte[] results = new byte[1 << 8];
+        int size = 0;
+
+        void add(int[] counts, int result) {
+            if (this.size == this.ends.length) {
+                this.ends = Arrays.copyOf(this.ends, this.size * 2);
+                this.results = Arrays.copyOf(this.results, this.size * 2);
+            }
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0)
+                    continue;
+                if (this.numberOfFeatures == this.features.length)
+                    this.features = Arrays.copyOf(this.features, this.numberOfFeatures * 2);
+                this.features[this.numberOfFeatures++] = i << 16 | (counts[i] & 0xFFFF);
+            }
+            this.ends[this.size] = this.numberOfFeatures;
+            this.results[this.size++] = (byte) result;
+        }
+
+        void addAll(Positions other) {
+            this.features = Arrays.copyOf(this.features, Math.max(this.features.length, this.numberOfFeatures + other.numberOfFeatures));
+            System.arraycopy(other.features, 0, this.features, this.numberOfFeatures, other.numberOfFeatures);
+            this.ends = Arrays.copyOf(this.ends, Math.max(this.ends.length, this.size + other.size));
+            this.results = Arrays.copyOf(this.results, this.ends.length);
+            for (int i = 0; i < other.size; i++)
+                this.ends[this.size + i] = this.numberOfFeatures + other.ends[i];
+            System.arraycopy(other.results, 0, this.results, this.size, other.size);
+            this.numberOfFeatures += other.numberOfFeatures;
+            this.size += other.size;
+        }
+    }
+
+    /**PUBLIC********************************************/
+    /* reads the games, fits the weights, and writes them
+    /****************************************************/
+    public static void main(String[] args) throws IOException {
+        Tuner tuner = new Tuner();
+        File outFile = new File(EvaluationWeights.DEFAULT_FILE);
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<File> gameFiles = new ArrayList<File>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-out"))
+                outFile = new File(args[++i]);
+            else if (args[i].equals("-weights"))
+                tuner.weights = EvaluationWeights.load(new File(args[++i]));
+            else if (args[i].equals("-iterations"))
+                tuner.iterations = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-rate"))
+                tuner.rate = Double.parseDouble(args[++i]);
+            else if (args[i].equals("-regularise"))
+                tuner.regularise = Double.parseDouble(args[++i]);
+            else if (args[i].equals("-skip"))
+                tuner.skipTurns = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-holdout"))
+                tuner.holdout = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-threads"))
+                threads = Integer.parseInt(args[++i]);
+            else if (args[i].startsWith("-"))
+                throw new IllegalArgumentException("unknown option " + args[i]);
+            else
+                gameFiles.add(new File(args[i]));
+        }
+        if (gameFiles.isEmpty())
+            throw new IllegalArgumentException("usage: java Tuner [options] gameFile...");
+
+        tuner.pool = new ForkJoinPool(Math.max(1, threads));
+        try {
+            EvaluationWeights fitted = tuner.run(gameFiles);
+            fitted.save(outFile);
+            System.out.println("weights written to " + outFile);
+        } finally {
+            tuner.pool.shutdown();
+        }
+    }
+
+    /*==PRIVATE==========================================*/
+    /* reads the games, counts their positions' features,
+    /* fits the weights and returns them
+    /*===================================================*/
+    private EvaluationWeights run(List<File> gameFiles) throws IOException {
+        long start = System.nanoTime();
+        List<Game> trainingGames = new ArrayList<Game>();
+        List<Game> testGames = new ArrayList<Game>();
+        for (File file : gameFiles) {
+            for (Game game : readGames(file)) {
+                if (this.holdout > 0 && (trainingGames.size() + testGames.size()) % this.holdout == this.holdout - 1)
+                    testGames.add(game);
+                else
+                    trainingGames.add(game);
+            }
+        }
+        System.out.println(String.format("%d games read in %d ms", trainingGames.size() + testGames.size(),
+                (System.nanoTime() - start) / 1000000));
+
+        start = System.nanoTime();
+        Positions training = this.pool.invoke(new ResolveTask(this, trainingGames, 0, trainingGames.size()));
+        Positions test = this.pool.invoke(new ResolveTask(this, testGames, 0, testGames.size()));
+        System.out.println(String.format("%d training and %d test positions resolved in %d ms", training.size, test.size,
+                (System.nanoTime() - start) / 1000000));
+        if (training.size == 0)
+            throw new IllegalArgumentException("no finished games to fit to");
+
+        start = System.nanoTime();
+        double[] parameters = toDoubles(this.weights.getParameters());
+        double scale = fitScale(training, parameters);
+        System.out.println(String.format("scale %.1f, starting loss %.6f, test loss %.6f", scale,
+                loss(training, parameters, scale), loss(test, parameters, scale)));
+
+        //Adam: each fitted weight steps by about rate, in the direction its gradient has mostly pointed
+        double[] starting = parameters.clone();
+        double[] mean = new double[parameters.length];
+        double[] variance = new double[parameters.length];
+        for (int iteration = 1; iteration <= this.iterations; iteration++) {
+            double[] gradient = this.pool.invoke(new LossTask(training, parameters, scale, true, 0, training.size));
+            for (int i = 0; i < parameters.length; i++) {
+                if (!EvaluationWeights.isIndependent(i))
+                    continue;
+                double g = gradient[i] / training.size + 2 * this.regularise * (parameters[i] - starting[i]);
+                mean[i] = 0.9 * mean[i] + 0.1 * g;
+                variance[i] = 0.999 * variance[i] + 0.001 * g * g;
+                double meanEstimate = mean[i] / (1 - Math.pow(0.9, iteration));
+                double varianceEstimate = variance[i] / (1 - Math.pow(0.999, iteration));
+                parameters[i] -= this.rate * meanEstimate / (Math.sqrt(varianceEstimate) + 1e-12);
+            }
+            if (iteration % PROGRESS_ITERATIONS == 0 || iteration == this.iterations)
+                System.out.println(String.format("iteration %5d  loss %.6f  test loss %.6f", iteration,
+                        gradient[parameters.length] / training.size, loss(test, parameters, scale)));
+        }
+
+        int[] rounded = new int[parameters.length];
+        for (int i = 0; i < parameters.length; i++)
+            rounded[i] = (int) Math.round(parameters[i]);
+        double[] roundedParameters = toDoubles(rounded);
+        System.out.println(String.format("fitted in %d ms, rounded weights' loss %.6f, test loss %.6f",
+                (System.nanoTime() - start) / 1000000, loss(training, roundedParameters, scale),
+                loss(test, roundedParameters, scale)));
+
+        //the changes: mobility's, and each table's mean and largest, the mean being the change in the piece's worth
+        int[] old = this.weights.getParameters();
+        for (int first = 0; first < EvaluationWeights.NUMBER_OF_PARAMETERS; first++) {
+            if (!EvaluationWeights.isIndependent(first))
+                continue;
+            String name = EvaluationWeights.getParameterName(first);
+            if (name.indexOf('.') < 0) {
+                System.out.println(String.format("    %-12s %6d -> %d", name, old[first], rounded[first]));
+                continue;
+            }
+            int last = first + 31;
+            int total = 0;
+            int largest = first;
+            for (int i = first; i <= last; i++) {
+                total += rounded[i] - old[i];
+                if (Math.abs(rounded[i] - old[i]) > Math.abs(rounded[largest] - old[largest]))
+                    largest = i;
+            }
+            System.out.println(String.format("    %-12s mean change %+.1f, largest %+d on %s", name.substring(0, name.indexOf('.')),
+                    total / 32.0, rounded[largest] - old[largest], EvaluationWeights.getParameterName(largest)));
+            first = last;
+        }
+        return new EvaluationWeights(rounded);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the finished games of a GameArchive, or of
+    /* a PDN file if the name ends in .pdn
+    /*===================================================*/
+    private static List<Game> readGames(File file) throws IOException {
+        List<Game> games = new ArrayList<Game>();
+        if (file.getName().toLowerCase().endsWith(".pdn")) {
+            FileReader in = new FileReader(file);
+            PdnReader reader = new PdnReader(in);
+            try {
+                while (reader.nextGame())
+                    if (reader.getResult() != GameArchive.UNFINISHED)
+                        games.add(new Game(reader.getStart(), Arrays.copyOf(reader.getMoves(), reader.getNumberOfMoves()),
+                                reader.getResult()));
+            } finally {
+                in.close();
+            }
+        }
+        else {
+            if (!file.exists())
+                throw new IOException(file + " not found");
+            GameArchive archive = new GameArchive(file);
+            try {
+                CheckersModel start = new CheckersModel();
+                for (int game = 0; game < archive.size(); game++) {
+                    int result = archive.getResult(game);
+                    if (result == GameArchive.UNFINISHED)
+                        continue;
+                    long[] moves = new long[archive.getNumberOfMoves(game)];
+                    archive.readGame(game, start, moves);
+                    games.add(new Game(start, moves, result));
+                }
+            } finally {
+                archive.close();
+            }
+        }
+        return games;
+    }
+
+    //resolves the positions of a range of games and counts their features, splitting large ranges in two
+    private static class ResolveTask extends RecursiveTask<Positions> {
+        private static final long serialVersionUID = 1L;
+
+        final Tuner tuner;
+        final List<Game> games;
+        final int from;
+        final int to;
+
+        ResolveTask(Tuner tuner, List<Game> games, int from, int to) {
+            this.tuner = tuner;
+            this.games = games;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected Positions compute() {
+            if (this.to - this.from > GAMES_PER_TASK) {
+                int middle = (this.from + this.to) >>> 1;
+                ResolveTask first = new ResolveTask(this.tuner, this.games, this.from, middle);
+                first.fork();
+                Positions second = new ResolveTask(this.tuner, this.games, middle, this.to).compute();
+                Positions positions = first.join();
+                positions.addAll(second);
+                return positions;
+            }
+            Positions positions = new Positions();
+            CheckersModel model = new CheckersModel();
+            model.setWeights(this.tuner.weights);
+            long[][] moveLists = new long[MAX_RESOLVE_PLY + 1][CheckersModel.MAX_MOVES];
+            long[][] lines = new long[MAX_RESOLVE_PLY + 1][MAX_RESOLVE_PLY + 1];
+            int[] lineEnds = new int[MAX_RESOLVE_PLY + 1];
+            int[] features = new int[EvaluationWeights.NUMBER_OF_PARAMETERS];
+            for (int i = this.from; i < this.to; i++) {
+                Game game = this.games.get(i);
+                model.setPosition(game.white, game.black, game.kings, game.whiteToMove);
+                for (int turn = 0; turn <= game.moves.length; turn++) {
+                    if (turn >= this.tuner.skipTurns && this.tuner.resolve(model, moveLists, lines, lineEnds, features))
+                        positions.add(features, game.result);
+                    if (turn < game.moves.length)
+                        model.makeMove(game.moves[turn]);
+                }
+            }
+            return positions;
+        }
+    }
+
+    /*==PRIVATE==========================================*/
+    /* searches the jumps the player to move must make, and
+    /* puts into features those of the quiet position they
+    /* lead to. Returns false if a player runs out of
+    /* moves. The model is left unchanged.
+    /*===================================================*/
+    private boolean resolve(CheckersModel model, long[][] moveLists, long[][] lines, int[] lineEnds, int[] features) {
+        if (model.generateMoves(moveLists[0]) == 0)
+            return false;
+        if (!Move.isJump(moveLists[0][0])) {
+            EvaluationWeights.getFeatures(model, features);
+            return true;
+        }
+
+        quiesce(model, 0, -SearchEngine.WIN - 1, SearchEngine.WIN + 1, moveLists, lines, lineEnds);
+        for (int ply = 0; ply < lineEnds[0]; ply++)
+            model.makeMove(lines[0][ply]);
+        boolean quiet = model.generateMoves(moveLists[0]) > 0;
+        if (quiet)
+            EvaluationWeights.getFeatures(model, features);
+        for (int ply = 0; ply < lineEnds[0]; ply++)
+            model.unmakeMove();
+        return quiet;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the score of the position for the player to
+    /* move, searching jumps only, and puts the best line
+    /* of jumps from it into lines[ply]
+    /*===================================================*/
+    private int quiesce(CheckersModel model, int ply, int alpha, int beta, long[][] moveLists, long[][] lines, int[] lineEnds) {
+        lineEnds[ply] = ply;
+        long[] moves = moveLists[ply];
+        int numberOfMoves = model.generateMoves(moves);
+        if (numberOfMoves == 0)
+            return -SearchEngine.WIN + ply;
+        if (!Move.isJump(moves[0]) || ply >= MAX_RESOLVE_PLY) {
+            int score = model.getSquareScore() + this.weights.getMobility() * (model.countSteps(true) - model.countSteps(false));
+            return model.isWhiteTurn ? score : -score;
+        }
+
+        for (int i = 0; i < numberOfMoves; i++) {
+            model.makeMove(moves[i]);
+            int score = -quiesce(model, ply + 1, -beta, -alpha, moveLists, lines, lineEnds);
+            model.unmakeMove();
+            if (score > alpha) {
+                alpha = score;
+                lines[ply][ply] = moves[i];
+                System.arraycopy(lines[ply + 1], ply + 1, lines[ply], ply + 1, lineEnds[ply + 1] - ply - 1);
+                lineEnds[ply] = lineEnds[ply + 1];
+            }
+            if (alpha >= beta)
+                break;
+        }
+        return alpha;
+    }
+
+    //adds up the loss, and its gradient if asked, over a range of positions, splitting large ranges in two
+    private static class LossTask extends RecursiveTask<double[]> {
+        private static final long serialVersionUID = 1L;
+
+        final Positions positions;
+        final double[] parameters;
+        final double scale;
+        final boolean withGradient;
+        final int from;
+        final int to;
+
+        LossTask(Positions positions, double[] parameters, double scale, boolean withGradient, int from, int to) {
+            this.positions = positions;
+            this.parameters = parameters;
+            this.scale = scale;
+            this.withGradient = withGradient;
+            this.from = from;
+            this.to = to;
+        }
+
+        //returns the gradient's sums followed by the loss's sum
+        protected double[] compute() {
+            if (this.to - this.from > POSITIONS_PER_TASK) {
+                int middle = (this.from + this.to) >>> 1;
+                LossTask first = new LossTask(this.positions, this.parameters, this.scale, this.withGradient, this.from, middle);
+                first.fork();
+                double[] sums = new LossTask(this.positions, this.parameters, this.scale, this.withGradient, middle, this.to).compute();
+                double[] firstSums = first.join();
+                for (int i = 0; i < sums.length; i++)
+                    sums[i] += firstSums[i];
+                return sums;
+            }
+
+            int[] features = this.positions.features;
+            double[] sums = new double[this.parameters.length + 1];
+            for (int position = this.from; position < this.to; position++) {
+                int start = position == 0 ? 0 : this.positions.ends[position - 1];
+                int end = this.positions.ends[position];
+                double score = 0;
+                for (int i = start; i < end; i++)
+                    score += this.parameters[features[i] >>> 16] * (short) features[i];
+
+                //log(1 + e^x) - label * x, written so that e^x can't overflow
+                double x = score / this.scale;
+                double label = LABELS[this.positions.results[position]];
+                sums[this.parameters.length] += Math.max(x, 0) + Math.log1p(Math.exp(-Math.abs(x))) - label * x;
+                if (this.withGradient) {
+                    double error = (1 / (1 + Math.exp(-x)) - label) / this.scale;
+                    for (int i = start; i < end; i++)
+                        sums[features[i] >>> 16] += error * (short) features[i];
+                }
+            }
+            return sums;
+        }
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the mean loss of the passed weights over the
+    /* positions, 0 if there are none
+    /*===================================================*/
+    private double loss(Positions positions, double[] parameters, double scale) {
+        if (positions.size == 0)
+            return 0;
+        double[] sums = this.pool.invoke(new LossTask(positions, parameters, scale, false, 0, positions.size));
+        return sums[parameters.length] / positions.size;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the scale the passed weights have the least
+    /* loss with, by golden section search of its logarithm
+    /*===================================================*/
+    private double fitScale(Positions positions, double[] parameters) {
+        double ratio = (Math.sqrt(5) - 1) / 2;
+        double low = Math.log(1);
+        double high = Math.log(10000);
+        double a = high - ratio * (high - low);
+        double b = low + ratio * (high - low);
+        double lossA = loss(positions, parameters, Math.exp(a));
+        double lossB = loss(positions, parameters, Math.exp(b));
+        while (high - low > 0.001) {
+            if (lossA < lossB) {
+                high = b;
+                b = a;
+                lossB = lossA;
+                a = high - ratio * (high - low);
+                lossA = loss(positions, parameters, Math.exp(a));
+            }
+            else {
+                low = a;
+                a = b;
+                lossA = lossB;
+                b = low + ratio * (high - low);
+                lossB = loss(positions, parameters, Math.exp(b));
+            }
+        }
+        return Math.exp((low + high) / 2);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the weights as real numbers
+    /*===================================================*/
+    private static double[] toDoubles(int[] parameters) {
+        double[] doubles = new double[parameters.length];
+        for (int i = 0; i < parameters.length; i++)
+            doubles[i] = parameters[i];
+        return doubles;
+    }
+}
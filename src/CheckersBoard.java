@@ -0,0 +1,284 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.image.BufferedImage;
+
+import javax.swing.ImageIcon;
+import javax.swing.JComponent;
+import javax.swing.Timer;
+
+public class CheckersBoard extends JComponent {
+
+    /* This component draws the checkers board and its pieces from a CheckersModel, in place of a grid of
+     * 64 buttons. It draws with Java2D straight from the model's bitboards, and works out which square a
+     * point is on arithmetically, so the ViewController only needs one mouse listener for the whole board.
+     *
+     * The board is the largest square that fits in the component, centred, so it resizes smoothly with the
+     * window. The nine piece images are read once, and scaled to the size of a square the first time they
+     * are drawn at that size; pieces are drawn SPRITE_PERCENT of a square across, as the buttons showed them.
+     * Only the squares inside the clip are drawn, so repainting the squares that changed is cheap.
+     *
+     * The time each paint takes is added to Metrics.REPAINT.
+     *
+     * A move can be animated: the piece is drawn sliding from its old square to its new one over
+     * ANIMATION_MILLIS, while the model already holds the position after the move.
+     *
+     * The public interface consists of:
+     *      Constructor taking the model drawn
+     *      repaintSquares(squares:int) repaints the squares whose bits are set
+     *      animateMove(from:int, to:int) slides the piece on square to from square from
+     *      getLocationAt(x:int, y:int) returns the {row,column} location at a point, or null if it is off
+     *          the board
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Color DARK_SQUARE = new Color(139,0,0); //colour of the squares pieces stand on
+    private static final Color LIGHT_SQUARE = Color.white;
+    private static final int SPRITE_PERCENT = 80; //width of a piece, as a percentage of a square's
+    private static final int ANIMATION_MILLIS = 150; //time a piece takes to slide to its new square
+    private static final int ANIMATION_FRAME_MILLIS = 15; //time between frames of a slide
+
+    //piece images, read once, indexed by SPRITE_WHITE/SPRITE_BLACK + SPRITE_KING + SPRITE_SELECTED, or EMPTY_SELECTED
+    private static final int SPRITE_WHITE = 0;
+    private static final int SPRITE_BLACK = 4;
+    private static final int SPRITE_KING = 2;
+    private static final int SPRITE_SELECTED = 1;
+    private static final int EMPTY_SELECTED = 8;
+    private static final Image[] SOURCE_SPRITES = loadSprites();
+
+    private final CheckersModel model; //the model drawn
+    private final BufferedImage[] sprites = new BufferedImage[SOURCE_SPRITES.length]; //scaled to spriteSize
+    private int spriteSize = 0; //size in pixels sprites are scaled to, 0 before the first paint
+
+    //the piece sliding to its square, animationTo is -1 if none
+    private int animationFrom = -1;
+    private int animationTo = -1;
+    private long animationStart; //System.nanoTime() the slide started
+    private final Timer animationTimer;
+
+    /**PUBLIC********************************************/
+    /* constructor, takes the model the board is drawn from
+    /****************************************************/
+    public CheckersBoard(CheckersModel model) {
+        this.model = model;
+        setOpaque(true);
+        setPreferredSize(new Dimension(480,480));
+
+        //repaint the sliding piece each frame, until it arrives
+        this.animationTimer = new Timer(ANIMATION_FRAME_MILLIS, new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                repaintAnimation();
+                if (System.nanoTime() - animationStart >= ANIMATION_MILLIS * 1000000L) {
+                    animationTimer.stop();
+                    animationTo = -1;
+                }
+            }
+        });
+    }
+
+    /**PUBLIC********************************************/
+    /* repaints the squares whose bits are set, for example
+    /* those returned by the model's takeChangedSquares()
+    /****************************************************/
+    public void repaintSquares(int squares) {
+        while (squares != 0) {
+            int square = Integer.numberOfTrailingZeros(squares);
+            squares &= squares - 1;
+            repaint(getSquareBounds(square));
+        }
+    }
+
+    /**PUBLIC********************************************/
+    /* slides the piece now on square to from square from,
+    /* replacing any slide not yet finished
+    /****************************************************/
+    public void animateMove(int from, int to) {
+        if (this.animationTo >= 0)
+            repaintAnimation();
+        this.animationFrom = from;
+        this.animationTo = to;
+        this.animationStart = System.nanoTime();
+        repaintAnimation();
+        this.animationTimer.restart();
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the {row,column} location of the square at
+    /* the passed point, or null if the point is off the
+    /* board
+    /****************************************************/
+    public int[] getLocationAt(int x, int y) {
+        int squareSize = getSquareSize();
+        if (squareSize == 0)
+            return null;
+        int col = Math.floorDiv(x - getBoardX(), squareSize);
+        int row = Math.floorDiv(y - getBoardY(), squareSize);
+        if (row < 0 || row > 7 || col < 0 || col > 7)
+            return null;
+        return new int[] {row, col};
+    }
+
+    /**PUBLIC********************************************/
+    /* draws the board, adding the time it takes to the
+    /* Metrics REPAINT histogram
+    /****************************************************/
+    protected void paintComponent(Graphics graphics) {
+        long start = System.nanoTime();
+        paintBoard((Graphics2D) graphics);
+        Metrics.REPAINT.record(System.nanoTime() - start);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* draws the squares inside the clip, their pieces, and
+    /* the sliding piece if there is one
+    /*===================================================*/
+    private void paintBoard(Graphics2D g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null)
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        int squareSize = getSquareSize();
+        if (squareSize == 0)
+            return;
+        scaleSprites(squareSize * SPRITE_PERCENT / 100);
+        int offset = (squareSize - this.spriteSize) / 2;
+
+        //squares inside the clip, and the pieces standing still on them
+        int firstRow = Math.max(0, Math.floorDiv(clip.y - getBoardY(), squareSize));
+        int lastRow = Math.min(7, Math.floorDiv(clip.y + clip.height - 1 - getBoardY(), squareSize));
+        int firstCol = Math.max(0, Math.floorDiv(clip.x - getBoardX(), squareSize));
+        int lastCol = Math.min(7, Math.floorDiv(clip.x + clip.width - 1 - getBoardX(), squareSize));
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                int x = getBoardX() + col * squareSize;
+                int y = getBoardY() + row * squareSize;
+                int[] loc = new int[] {row, col};
+                if (!this.model.isValidLocation(loc)) {
+                    g.setColor(LIGHT_SQUARE);
+                    g.fillRect(x, y, squareSize, squareSize);
+                    continue;
+                }
+                g.setColor(DARK_SQUARE);
+                g.fillRect(x, y, squareSize, squareSize);
+                int square = CheckersModel.toSquare(loc);
+                int sprite = getSprite(square);
+                if (square == this.animationTo && sprite != EMPTY_SELECTED)
+                    continue;
+                if (sprite >= 0)
+                    g.drawImage(this.sprites[sprite], x + offset, y + offset, null);
+            }
+        }
+
+        //the sliding piece, part way from its old square to its new one
+        if (this.animationTo >= 0) {
+            int sprite = getSprite(this.animationTo);
+            if (sprite >= 0 && sprite != EMPTY_SELECTED) {
+                double progress = Math.min(1.0, (System.nanoTime() - this.animationStart) / (ANIMATION_MILLIS * 1e6));
+                Rectangle from = getSquareBounds(this.animationFrom);
+                Rectangle to = getSquareBounds(this.animationTo);
+                int x = (int) Math.round(from.x + (to.x - from.x) * progress);
+                int y = (int) Math.round(from.y + (to.y - from.y) * progress);
+                g.drawImage(this.sprites[sprite], x + offset, y + offset, null);
+            }
+        }
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the index in sprites of the picture of the
+    /* passed square, or -1 if it is drawn empty
+    /*===================================================*/
+    private int getSprite(int square) {
+        int bit = 1 << square;
+        boolean selected = this.model.getPieceSelected(CheckersModel.toLocation(square));
+
+        //no piece on square
+        if (((this.model.getWhitePieces() | this.model.getBlackPieces()) & bit) == 0)
+            return selected ? EMPTY_SELECTED : -1;
+        return ((this.model.getWhitePieces() & bit) != 0 ? SPRITE_WHITE : SPRITE_BLACK)
+                + ((this.model.getKingPieces() & bit) != 0 ? SPRITE_KING : 0) + (selected ? SPRITE_SELECTED : 0);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* repaints the squares the sliding piece moves between,
+    /* which hold every point of its straight path
+    /*===================================================*/
+    private void repaintAnimation() {
+        repaint(getSquareBounds(this.animationFrom).union(getSquareBounds(this.animationTo)));
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the size in pixels of a square, the largest
+    /* that fits 8 across and 8 down
+    /*===================================================*/
+    private int getSquareSize() {
+        return Math.min(getWidth(), getHeight()) / 8;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the x of the board's left edge, the board
+    /* being centred in the component
+    /*===================================================*/
+    private int getBoardX() {
+        return (getWidth() - 8 * getSquareSize()) / 2;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the y of the board's top edge, the board
+    /* being centred in the component
+    /*===================================================*/
+    private int getBoardY() {
+        return (getHeight() - 8 * getSquareSize()) / 2;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the pixels the passed square covers
+    /*===================================================*/
+    private Rectangle getSquareBounds(int square) {
+        int[] loc = CheckersModel.toLocation(square);
+        int squareSize = getSquareSize();
+        return new Rectangle(getBoardX() + loc[1] * squareSize, getBoardY() + loc[0] * squareSize, squareSize, squareSize);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* scales the piece images to the passed size, unless
+    /* they already are
+    /*===================================================*/
+    private void scaleSprites(int size) {
+        if (size == this.spriteSize || size <= 0)
+            return;
+        this.spriteSize = size;
+        for (int i = 0; i < SOURCE_SPRITES.length; i++) {
+            this.sprites[i] = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = this.sprites[i].createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(SOURCE_SPRITES[i], 0, 0, size, size, null);
+            g.dispose();
+        }
+    }
+
+    /*==PRIVATE==========================================*/
+    /* reads the nine piece images from the images folder
+    /*===================================================*/
+    private static Image[] loadSprites() {
+        String[] names = {"White", "WhiteSelected", "WhiteKing", "WhiteKingSelected",
+                "Black", "BlackSelected", "BlackKing", "BlackKingSelected", "EmptySelected"};
+        Image[] loaded = new Image[names.length];
+        for (int i = 0; i < names.length; i++)
+            loaded[i] = new ImageIcon(CheckersBoard.class.getResource("/images/" + names[i] + ".png")).getImage();
+        return loaded;
+    }
+}
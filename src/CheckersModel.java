@@ -1,638 +1,1562 @@
-import java.io.BufferedReader;  
-import java.io.File;  
-import java.io.FileNotFoundException;  
-import java.io.FileReader;  
-import java.io.IOException;  
-import java.util.ArrayList;  
-import java.util.Random;  
-      
-public class CheckersModel {     
-                
-    /* Our model stores all information about game, and handles all game logic.     
-     *   
-     * The public interface consist of:     
-     *      Constructor, initializes all pieces to NONE  
-     *      getPieceColour(location:int[]) returns the colour of the piece at specified location  
-     *      getPieceKinged(location:int[]) returns true if piece kinged at specified location  
-     *      getPieceSelected(location:int[]) returns true if piece selected at specified location  
-     *      setPiece(location:int[]) sets the colour and kinged status of piece at passed location     
-     *      selectPiece(location:int[]) sets the selected attribute of the piece to true     
-     *      deselectAll() sets selected attribute of all pieces to false     
-     *      defaultBoard() sets up a default board, 12 white & 12 black pieces  
-     *      getNumberOfPieces(colour:String) returns number of pieces of specified colour on board  
-     *      getValidMoves(location:int[]) returns array of valid locations of moves for piece  
-     *          at passed location  
-     *      movePiece(location:int[], newLocation:int[]) moves the piece at location to newLocation, taking  
-     *          piece if necessary, kinging piece if necessary and handling multiple-jumping  
-     *      loadGame(file:File) loads a previously saved game from passed text file  
-     *      otherPieceCanJump(location:int[]) returns true if passed piece can't jump but another one can
-     *      isValidLocation(location:int[]) returns true if passed 2-element array is a valid location  
-     *        
-     *------CHANGELOG REVISION 1 ----------------------------------------------------------------------  
-     *        
-     *      We have added 2 new public boolean attributes, isWhiteTurn and jumpOnlyMode. isWhiteTurn is true  
-     *      when it is the white player's turn to play during gameplay. jumpOnlyMode is true when a player  
-     *      has just jumped a piece and can perform a second jump. Both are public and accessed by the ViewController.  
-     *       
-     *      Locations are now 2-element int arrays, of the row followed by the column. Previously they were  
-     *      integers in the bounds [0,31], but our code is greatly simplified by choosing to use a  
-     *      (row,column) tuple. The only disadvantage is that we must check that each location is valid  
-     *      before accessing its piece.  
-     *        
-     *      getPiece(location) replaced with separate getPieceColour, getPieceKinged, and getKingSelected  
-     *      methods so that our view controller class never needs to access Piece methods. This improves our  
-     *      uses hierarchy immensely, and simplifies the calls in the ViewController.  
-     *        
-     *      isValidLocation(location:int[]) checks whether a passed location corresponds with a valid square,  
-     *      and returns a boolean. It is a public method so that the ViewController can call it  
-     *      before accessing pieces at locations.  
-     *         
-     *      getValidMoves(location:int[]) returns an int[] of size at most 4 of locations (also int[]'s) that  
-     *      the piece at the passed location can move to, including jumps. No variables are updated.  
-     *        
-     *      movePiece(location:int[], newLocation:int[]) moves the piece at location to its newLocation (gathered  
-     *      from a previous call to getValidMoves), taking a piece if necessary, and kinging the moved piece  
-     *      if necessary. It updates isWhiteTurn and jumpOnlyMode, and returns void.  
-     *        
-     *      boolean loadGame(file:File) takes a text file as input and loads the corresponding game. If file is  
-     *      invalid, then it returns false, otherwise true.  
-     *        
-     *------------------------------------------------------------------------------------------------- 
-     * 
-     *------CHANGELOG REVISION 2 ---------------------------------------------------------------------- 
-     * 
-     *      2 public booleans have been added, playerIsWhite and vsComputer. playerIsWhite stores 
-     *      the colour the player chooses if playing vs computer, and vsComputer is true if game is against 
-     *      AI. 
-     *       
-     *      getValidMoves(location:int[]) has been modified to solve testing case 4.3; now when a non-king 
-     *      jumps into a kinging spot it can't jump again, as per requirements. 
-     *       
-     *      movePiece(location:int[], newLocation:int[]) now calls the computer to do a second (or third etc)
-     *      jump if they have the opportunity
-     *       
-     *      computerMove(location:int[]) finds all possible moves for the computer to make and randomly selects 
-     *      one, then makes it. If computer is in midst of double/triple-jumping then the passed location is not 
-     *      null, and stores the current location of the piece, to ensure no other jumping moves are selected. 
-     *       
-     *      loadGame(file:File) now loads in the new boolean attributes. 
-     *       
-     *      otherPieceCanJump(location:int[]) returns false if either the current piece has a jumping move 
-     *      or if no pieces have jumping moves. If some other piece on the board can jump, then true is returned 
-     *      and the player must choose one of those jumping moves. 
-     * 
-     *------------------------------------------------------------------------------------------------- 
-     *         
-     */
-                
-    //array of pieces is main data structure of model, one piece per square     
-    private Piece piecesArray[][] = new Piece[8][8];     
-      
-    public boolean isWhiteTurn = true; //true if white player's turn  
-    public boolean jumpOnlyMode = false; //true if player is double-jumping  
-    public boolean playerIsWhite = true; //true if player chooses white vs computer        
-    public boolean vsComputer = false; //true if player playing against computer  
-        
-    /**PUBLIC********************************************/
-    /* default constructor, initializes each piece using     
-    /* the Piece constructor with default arguments     
-    /* Rev.1:no change except accommodating new location type 
-    /* Rev.2: no changes made in revision 2 
-    /****************************************************/
-    CheckersModel() {     
-        for (int row = 0; row < 8; row++)     
-            for (int col = 0; col < 8; col++)    
-                if (isValidLocation(new int[] {row,col}))    
-                    piecesArray[row][col] = new Piece("NONE",false);     
-    }     
-               
-    /**PUBLIC********************************************/
-    /* returns the piece's colour at specified location  
-    /* Rev.1: new method in revision 1     
-    /* Rev.2: no changes made in revision 2 
-    /****************************************************/
-    public String getPieceColour(int[] loc) {  
-          
-        //return the pieces colour if location is valid  
-        if (isValidLocation(loc))  
-            return piecesArray[loc[0]][loc[1]].getColour();  
-              
-        //returns null otherwise  
-        return null;  
-    }  
-          
-    /**PUBLIC********************************************/
-    /* returns true if piece kinged at specified location  
-    /* Rev.1: new method in revision 1        
-    /* Rev.2: no changes made in revision 2 
-    /****************************************************/
-    public boolean getPieceKinged(int[] loc) {  
-              
-        //return true if piece is kinged and location is valid  
-        if (isValidLocation(loc))  
-            return piecesArray[loc[0]][loc[1]].getKinged();  
-              
-        //returns false otherwise  
-        return false;  
-    }  
-          
-    /**PUBLIC********************************************/
-    /* returns true if piece selected at specified location  
-    /* Rev.1: new method in revision 1  
-    /* Rev.2: no changes made in revision 2 
-    /****************************************************/
-    public boolean getPieceSelected(int[] loc) {  
-              
-        //return true if piece is selected and location is valid  
-        if (isValidLocation(loc))  
-            return piecesArray[loc[0]][loc[1]].getSelected();  
-                  
-        //returns false otherwise  
-        return false;  
-    }  
-          
-    /**PUBLIC********************************************/
-    /* sets the piece at passed location to have specified     
-    /* colour and kinged status.     
-    /* Rev.1: no change beyond accommodating new location type  
-    /* Rev.2: no changes made in revision 2 
-    /****************************************************/
-    public void setPiece(int loc[], String colour, boolean isKinged) {     
-              
-        //make sure location is valid     
-        if (isValidLocation(loc)) 
-            piecesArray[loc[0]][loc[1]] = new Piece(colour,isKinged);     
-    }     
-                
-    /**PUBLIC********************************************/
-    /* selects the piece at the specified location  
-    /* Rev.1: no change beyond accommodating new location type     
-    /* Rev.2: no changes made in revision 2 
-    /****************************************************/
-    public void selectPiece(int loc[]) {     
-          
-        //make sure loc is valid    
-        if (isValidLocation(loc))  
-            piecesArray[loc[0]][loc[1]].setSelected(true);       
-    }     
-            
-    /**PUBLIC********************************************/
-    /* de-selects all pieces  
-    /* Rev.1: no change beyond accommodating new location type     
-    /* Rev.2: no changes made in revision 2 
-    /****************************************************/
-    public void deselectAll() {     
-        for (int row = 0; row < 8; row++)    
-            for (int col = 0; col < 8; col++)    
-                if (isValidLocation(new int[] {row,col}))    
-                    piecesArray[row][col].setSelected(false);     
-    }     
-                
-    /**PUBLIC********************************************/
-    /* sets up a default board, with 12 white and 12      
-    /* black pieces in their proper locations.     
-    /* Rev.1: no change beyond accommodating new location type  
-    /* Rev.2: no changes made in revision 2 
-    /****************************************************/
-    public void defaultBoard() {     
-              
-        //go through each piece and set its colour to the proper value     
-        for (int row = 0; row < 8; row++) {     
-            for (int col = 0; col < 8; col++) {    
-                if (isValidLocation(new int[] {row,col})) {    
-                    if (row <= 2)     
-                        this.setPiece(new int[] {row,col},"BLACK",false);     
-                    else if (row >= 5)     
-                        this.setPiece(new int[] {row,col},"WHITE",false);     
-                    else
-                        this.setPiece(new int[] {row,col},"NONE",false);    
-                }    
-            }    
-        }    
-    }     
-                
-    /**PUBLIC********************************************/
-    /* returns the number of pieces of the specified colour  
-    /* Rev.1: no change beyond accommodating new location type  
-    /* Rev.2: no changes made in revision 2 
-    /****************************************************/
-    public int getNumberOfPieces(String colour) {     
-        int numberOfPieces = 0;     
-                    
-        //for each piece increment counter if colour matches specified colour     
-        for (int row = 0; row < 8; row++) {    
-            for (int col = 0; col < 8; col++) {    
-                if (isValidLocation(new int[] {row,col}))    
-                    if (piecesArray[row][col].getColour().equals(colour))    
-                        numberOfPieces++;    
-            }    
-        }    
-        return numberOfPieces;     
-    }     
-              
-    /**PUBLIC********************************************/
-    /* returns array of valid moves, null if no valid moves  
-    /* Rev.1: new method in revision 1     
-    /* Rev.2: solves testing case 4.3; now when a non-king 
-    /* jumps into a kinging spot it can't jump again, as 
-    /* per requirements. 
-    /****************************************************/
-    public int[][] getValidMoves(int[] loc) {    
-      
-        //validMoves array, at most a piece can have 4 valid moves. Initialize to null.  
-        int[][] validMoves = new int[4][2];    
-        for (int i = 0; i < validMoves.length; i++)  
-            validMoves[i] = null;  
-              
-        //Information of the current piece (the one clicked)  
-        int rowNum = loc[0];  
-        int colNum = loc[1];  
-      
-        //becomes true if a jump found, and one can only jump if in jump-only mode  
-        boolean hasJump = false;  
-        if (this.jumpOnlyMode)  
-            hasJump = true;  
-      
-        //If current piece is WHITE  
-        if (getPieceColour(loc).equals("WHITE")) {   
-      
-            // Checks square to the upper right ^>  
-            if (rowNum - 1 >= 0 && colNum + 1 <= 7) {  
-      
-                // If that square is unoccupied, then it is a valid move  
-                if (getPieceColour(new int[] {rowNum-1, colNum+1}).equals("NONE") && !hasJump)   
-                    validMoves[0] = new int[] {rowNum-1,colNum+1};  
-      
-                // If that square is occupied with an opponent's piece that can be jumped  
-                else if (rowNum - 2 >= 0 && colNum + 2 <= 7 && getPieceColour(new int[] {rowNum-1, colNum+1}).equals("BLACK")  
-                        && getPieceColour(new int[] {rowNum-2, colNum+2}).equals("NONE")) {   
-                    validMoves[0] = new int[] {rowNum-2,colNum+2};   
-                    hasJump = true;  
-                }  
-            }  
-      
-            // Checks the square to the upper left <^  
-            if (rowNum-1 >= 0 && colNum-1 >= 0) {  
-      
-                //if square unoccupied  
-                if (getPieceColour(new int[]{rowNum-1, colNum-1}).equals("NONE"))   
-                    validMoves[1] = new int[] {rowNum-1,colNum-1};    
-      
-                //if square occupied with opponent's piece, check if jumpable  
-                else if (rowNum-2 >= 0 && colNum-2 >= 0 && getPieceColour(new int[]{rowNum-1, colNum-1}).equals("BLACK")  
-                        && getPieceColour(new int[]{rowNum-2, colNum-2}).equals("NONE"))   {  
-                    validMoves[1] = new int[] {rowNum-2,colNum-2};   
-                    hasJump = true;  
-                }  
-            }  
-      
-            // If current piece is a king, then it will gain extra possibilities   
-            if (getPieceKinged(loc)) {   
-      
-                //Checks lower right square v>  
-                if (rowNum+1 <= 7 && colNum+1 <= 7) {  
-      
-                    //if square unoccupied  
-                    if (getPieceColour(new int[] {rowNum+1, colNum+1}).equals("NONE"))   
-                        validMoves[2] = new int[] {rowNum+1, colNum+1};   
-      
-                    //if square occupied with opponent's piece, check if jumpable  
-                    else if (rowNum+2 <= 7 && colNum+2 <= 7 && getPieceColour(new int[] {rowNum+1, colNum+1}).equals("BLACK")  
-                            && getPieceColour(new int[] {rowNum+2, colNum+2}).equals("NONE")) {  
-                        validMoves[2] = new int[] {rowNum+2,colNum+2};   
-                        hasJump = true;  
-                    }  
-                }  
-      
-                //check lower left square  
-                if (rowNum+1 <= 7 && colNum-1 >= 0) {  
-      
-                    //if square unoccupied  
-                    if (getPieceColour(new int[]{rowNum+1, colNum-1}).equals("NONE"))   
-                        validMoves[3] = new int[] {rowNum+1,colNum-1};   
-      
-                    //if square occupied with opponent's piece, check if jumpable  
-                    else if (rowNum+2 <= 7 & colNum-2 >= 0 && getPieceColour(new int[]{rowNum+1, colNum-1}).equals("BLACK")  
-                            && getPieceColour(new int[]{rowNum+2, colNum-2}).equals("NONE") ) {  
-                        validMoves[3] = new int[] {rowNum+2,colNum-2};   
-                        hasJump = true;  
-                    }  
-                }  
-            }  
-        }   
-      
-        // If current piece is BLACK  
-        else  {   
-      
-            //check lower right square  
-            if (rowNum+1 <= 7 && colNum+1 <= 7) {  
-      
-                //if square unoccupied  
-                if (getPieceColour(new int[] {rowNum+1, colNum+1}).equals("NONE"))   
-                    validMoves[0] = new int[] {rowNum+1, colNum+1};   
-      
-                //if square occupied with opponent's piece, check if jumpable  
-                else if (rowNum+2 <= 7 && colNum+2 <= 7 && getPieceColour(new int[]{rowNum+1, colNum+1}).equals("WHITE")  
-                        && getPieceColour(new int[]{rowNum+2, colNum+2}).equals("NONE")) {  
-                    validMoves[0] = new int[] {rowNum+2,colNum+2};   
-                    hasJump = true;  
-                }  
-            }  
-      
-            //check below left square  
-            if (rowNum+1 <= 7 && colNum-1 >= 0) {  
-      
-                    
-                //if square unoccupied  
-                if (getPieceColour(new int[]{rowNum+1, colNum-1}).equals("NONE"))  
-                    validMoves[1] = new int[] {rowNum+1,colNum-1};  
-      
-                //if square occupied with opponent's piece, check if jumpable  
-                else if (rowNum+2 <= 7 && colNum-2 >= 0 && getPieceColour(new int[]{rowNum+1, colNum-1}).equals("WHITE")  
-                        && getPieceColour(new int[]{rowNum+2, colNum-2}).equals("NONE")) {  
-                    validMoves[1] = new int[] {rowNum+2,colNum-2};   
-                    hasJump = true;  
-                }  
-            }  
-      
-            //additional moves if piece is king  
-            if (getPieceKinged(loc)) {  
-      
-                //check upper right square  
-                if (rowNum-1 >= 0 && colNum+1 <= 7) {  
-      
-                    //if square unoccupied  
-                    if (getPieceColour(new int[]{rowNum-1, colNum+1}).equals("NONE"))   
-                        validMoves[2] = new int[] {rowNum-1,colNum+1};         
-      
-                    //if square occupied with opponent's piece, check if jumpable  
-                    else if (rowNum-2 >= 0 && colNum+2 <= 7 && getPieceColour(new int[]{rowNum-1, colNum+1}).equals("WHITE")  
-                            && getPieceColour(new int[]{rowNum-2, colNum+2}).equals("NONE")) {  
-                        validMoves[2] = new int[] {rowNum-2,colNum+2};   
-                        hasJump = true;  
-                    }  
-                }  
-      
-                //check upper left square  
-                if (rowNum-1 >= 0 && colNum-1 >= 0) {  
-      
-                    //if square unoccupied  
-                    if (getPieceColour(new int[]{rowNum-1, colNum-1}).equals("NONE"))   
-                        validMoves[3] = new int[] {rowNum-1,colNum-1};    
-      
-                    //if square occupied with opponent's piece, check if jumpable  
-                    else if (rowNum-2 >= 0 && colNum-2 >= 0 && getPieceColour(new int[]{rowNum-1, colNum-1}).equals("WHITE")  
-                            && getPieceColour(new int[]{rowNum-2, colNum-2}).equals("NONE"))  {  
-                        validMoves[3] = new int[] {rowNum-2,colNum-2};   
-                        hasJump = true;  
-                    }  
-                }  
-            }      
-        }   
-      
-        //add all the non null moves and non jumping moves (if there is a jump) to an arraylist  
-        ArrayList<int[]> validList = new ArrayList<int[]>();  
-        for (int i = 0; i < 4; i++) 
-            if (validMoves[i] != null) 
-                if (!hasJump || (hasJump && (Math.abs(validMoves[i][0] - loc[0]) > 1)))  
-                    validList.add(validMoves[i]);  
-          
-        //if no moves, return null  
-        if (validList.size() == 0)  
-            return null;  
-              
-        //otherwise return the valid moves  
-        return validList.toArray(new int[validList.size()][2]);    
-    }    
-              
-    /**PUBLIC********************************************/
-    /* moves a piece from loc to newLoc, kinging and taking    
-    /* piece if necessary     
-    /* Rev.1: new method in revision 1 
-    /* Rev.2: calls computer to double jump if necessary 
-    /****************************************************/
-    public void movePiece(int[] loc, int[] newLoc) {    
-      
-        if (isValidLocation(loc) && isValidLocation(newLoc)) {    
-      
-            //if white player's turn    
-            if (isWhiteTurn) {    
-                if (newLoc[0] == 0 || getPieceKinged(loc))    
-                    setPiece(newLoc,"WHITE",true);    
-                else
-                    setPiece(newLoc,"WHITE",false);    
-            }    
-      
-            //if black player's turn    
-            else if (!isWhiteTurn) {    
-                if (newLoc[0] == 7 || getPieceKinged(loc))    
-                    setPiece(newLoc,"BLACK",true);    
-                else
-                    setPiece(newLoc,"BLACK",false);    
-            }    
-      
-            //if player took a piece    
-            if (Math.abs(newLoc[0] - loc[0]) > 1) {    
-      
-                //take the piece    
-                int[] takenLoc = new int[] {(Math.min(loc[0],newLoc[0]) + 1), (Math.min(loc[1],newLoc[1]) + 1)};    
-                setPiece(takenLoc,"NONE",false);  
-                    
-                //reset jump mode to false    
-                this.jumpOnlyMode = false;    
-    
-                //if there are moves in new location, AND player did not become a king in this turn, check if they're jumping moves    
-                if (!(!getPieceKinged(loc) && (newLoc[0] == 0 || newLoc[0] == 7)) && getValidMoves(newLoc) != null) {    
-                          
-                    //for each possible move, check if it's a jump    
-                    for (int i = 0; i < getValidMoves(newLoc).length; i++)  {  
-      
-                        //if there's a jump, enter jump only mode and take it, if computer 
-                        if (Math.abs(getValidMoves(newLoc)[i][0] - newLoc[0]) > 1) {  
-                            this.jumpOnlyMode = true;  
-                            if (vsComputer && !isWhiteTurn == playerIsWhite) 
-                            	computerMove(newLoc);
-                        }  
-                    }  
-                }  
-                  
-                //delete original piece    
-                setPiece(loc,"NONE",false);  
-                    
-                //switch turn if player can't jump again  
-                if (!this.jumpOnlyMode)  
-                    this.isWhiteTurn = !this.isWhiteTurn;  
-                 
-            }  
-                
-            //player didn't take a piece    
-            else {  
-                //delete original piece    
-                setPiece(loc,"NONE",false);  
-                    
-                //switch turns and let computer move  
-                this.isWhiteTurn = !this.isWhiteTurn;  
-              
-            }      
-        }  
-    }  
-        
-    /**PUBLIC********************************************/
-    /* makes a move for the computer; AI. If jumping again 
-    /* in a move, the location jumping from is passed, 
-    /* otherwise it's null.   
-    /* Rev.2: new method in revision 2  
-    /****************************************************/
-    public void computerMove(int[] doubleJumpPieceLoc) {  
-    
-        //if piece is double jumping, make move for that particular piece and switch turns  
-        if (doubleJumpPieceLoc != null && this.jumpOnlyMode) {  
-            movePiece(doubleJumpPieceLoc, getValidMoves(doubleJumpPieceLoc)[0]);  
-            this.isWhiteTurn = !this.isWhiteTurn;  
-            return;   
-        }  
-          
-        //stores all possible moves the computer has  
-        ArrayList<int[][]> possibleMoves = new ArrayList<int[][]>();  
-            
-        //iterate over all locations  
-        for (int row = 0; row < 8; row++) {  
-            for (int col = 0; col < 8; col++) {  
-  
-                //check location  
-                int[] loc = new int[] {row,col};  
-                if (isValidLocation(loc))  
-                    if ((getPieceColour(loc).equals("WHITE") && !this.playerIsWhite) || (getPieceColour(loc).equals("BLACK") && this.playerIsWhite))  
-                        if (getValidMoves(loc) != null && !otherPieceCanJump(loc)) 
-                            //add all possible moves to list  
-                            for (int[] move : getValidMoves(loc))  
-                                possibleMoves.add(new int[][] {loc,move});  
-            }  
-        }  
-  
-        //randomly select a move, and move the piece  
-        Random random = new Random();  
-        if (possibleMoves.size() > 0) {  
-            int i =  Math.abs(random.nextInt()) % possibleMoves.size();  
-            movePiece(possibleMoves.get(i)[0],possibleMoves.get(i)[1]);  
-        }  
-    }  
-      
-    /**PUBLIC********************************************/
-      
-    /**PUBLIC********************************************/
-    /* loads game from passed text file, returns true  
-    /* if load was successful, false if error.  
-    /* Rev.1: new method in revision 1 
-    /* Rev.1: now loads new boolean attributes as well  
-    /****************************************************/
-    public boolean loadGame(File gameFile) {  
-          
-        //our reader  
-        BufferedReader reader;  
-              
-        //read all pieces from file, and set board up  
-        try {  
-            reader = new BufferedReader(new FileReader(gameFile));  
-            String lineString;  
-            while ((lineString = reader.readLine()) != null) {  
-                      
-                //check that each line is in proper format  
-                if (lineString.matches("[0,1,2,3,4,5,6,7],[0,1,2,3,4,5,6,7],(WHITE|BLACK|NONE),(true|false)")  
-                        || lineString.matches("(ISWHITETURN|VSCOMPUTER|PLAYERISWHITE),(false|true)")) {  
-                          
-                    //split our line by its commas  
-                    String lineStringArray[] = lineString.split(",");  
-      
-                    //if line has all data, set the piece properly  
-                    if (lineStringArray.length == 4) {  
-                        int[] loc = new int[] {Integer.parseInt(lineStringArray[0]),Integer.parseInt(lineStringArray[1])};  
-                              
-                        if (isValidLocation(loc))  
-                            setPiece(loc,lineStringArray[2],Boolean.parseBoolean(lineStringArray[3]));  
-                              
-                        //if file tampered and invalid location, return false  
-                        else {  
-                            reader.close();  
-                            return false;  
-                        }  
-      
-                    }  
-                    //if not on piece line, set boolean appropriately  
-                    else if (lineStringArray.length == 2) {  
-                        if (lineStringArray[0].equals("ISWHITETURN"))  
-                            this.isWhiteTurn = Boolean.parseBoolean(lineStringArray[1]);  
-                        else if (lineStringArray[0].equals("VSCOMPUTER"))  
-                            this.vsComputer = Boolean.parseBoolean(lineStringArray[1]);  
-                        else if (lineStringArray[0].equals("PLAYERISWHITE"))  
-                            this.playerIsWhite = Boolean.parseBoolean(lineStringArray[1]);  
-                    }  
-                }  
-                      
-                //if file has been illegally modified, return false  
-                else {  
-                    reader.close();  
-                    return false;  
-                }  
-            }  
-            //close our reader when done  
-            reader.close();  
-              
-        } catch (FileNotFoundException e1) {  
-            System.out.println("FileNotFound Error");  
-            return false;  
-        } catch (IOException e) {  
-            System.out.println("IOException Error");  
-            return false;  
-        }  
-            
-        //if no errors, return true 
-        return true;  
-    }  
-         
-    /**PUBLIC*******************************************/
-    /* return true if player has another piece that can 
-    /* jump, false if passed location piece can jump or 
-    /* if no other pieces can jump.  
-    /* Rev.2: new method in revision 2    
-    /***************************************************/
-    public boolean otherPieceCanJump(int[] loc) {  
-    
-        //if passed piece has a jump, return false 
-        if (getValidMoves(loc) != null && Math.abs(getValidMoves(loc)[0][0] - loc[0]) > 1)  
-            return false;  
-    
-        //check all other pieces to see if any can jump 
-        for (int row = 0; row < 8; row++) {  
-            for (int col = 0; col < 8; col++) {  
-                int[] otherPieceLoc = new int[] {row,col};  
-                    
-                //ensure location is valid, and return true if a piece can jump 
-                if (isValidLocation(otherPieceLoc))  
-                    if (isWhiteTurn && getPieceColour(otherPieceLoc).equals("WHITE") || !isWhiteTurn && getPieceColour(otherPieceLoc).equals("BLACK")) 
-                        if (getValidMoves(otherPieceLoc) != null && Math.abs(getValidMoves(otherPieceLoc)[0][0] - otherPieceLoc[0]) > 1)  
-                            return true;  
-            }  
-        }  
-          
-        //if no pieces can jump, return false 
-        return false;  
-    } 
-      
-    /**PUBLIC*******************************************/
-      
-    /**PUBLIC********************************************/
-    /* return true if location is a red square (i.e. valid)  
-    /* Rev.1: new method in revision 1    
-    /* Rev.2: no changes made in revision 2 
-    /***************************************************/
-    public boolean isValidLocation(int[] loc) {    
-                  
-        //check if location is valid    
-        if (loc.length == 2 && loc[0] < 8 && loc[1] < 8 && loc[0] % 2 != loc[1] % 2)    
-            return true;    
-                
-        //if invalid, return false  
-        return false;    
-    }   
-}
\ No newline at end of file
+import java.io.BufferedReader;  
+import java.io.File;  
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;  
+import java.io.FileOutputStream;
+import java.io.FileReader;  
+import java.io.IOException;  
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+      
+public class CheckersModel {     
+                
+    /* Our model stores all information about game, and handles all game logic.     
+     *   
+     * The public interface consist of:     
+     *      Constructor, initializes all pieces to NONE  
+     *      getPieceColour(location:int[]) returns the colour of the piece at specified location  
+     *      getPieceKinged(location:int[]) returns true if piece kinged at specified location  
+     *      getPieceSelected(location:int[]) returns true if piece selected at specified location  
+     *      setPiece(location:int[]) sets the colour and kinged status of piece at passed location     
+     *      selectPiece(location:int[]) sets the selected attribute of the piece to true     
+     *      deselectAll() sets selected attribute of all pieces to false     
+     *      defaultBoard() sets up a default board, 12 white & 12 black pieces  
+     *      getNumberOfPieces(colour:String) returns number of pieces of specified colour on board  
+     *      getNumberOfKings(colour:String) returns number of kings of specified colour on board
+     *      isGameOver() returns true if the player whose turn it is can't move, and winner() returns
+     *          the colour of the other player if so
+     *      getValidMoves(location:int[]) returns array of valid locations of moves for piece  
+     *          at passed location  
+     *      movePiece(location:int[], newLocation:int[]) moves the piece at location to newLocation, taking  
+     *          piece if necessary, kinging piece if necessary and handling multiple-jumping  
+     *      loadGame(file:File) loads a previously saved game from passed text file  
+     *      saveBinaryGame(file:File) and loadBinaryGame(file:File) save and load the position in the
+     *          compact binary format
+     *      writePosition(buffer:ByteBuffer) and readPosition(buffer:ByteBuffer) put and get the position
+     *          in the compact binary format, POSITION_BYTES long
+     *      setPosition(white:int, black:int, kings:int, whiteToMove:boolean) sets the board from bitboards
+     *      otherPieceCanJump(location:int[]) returns true if passed piece can't jump but another one can
+     *      generateMoves(moveBuffer:long[]) writes all legal moves as packed longs, returns how many
+     *      generateLegalMoves(white:boolean, moveBuffer:long[]) does the same for the passed side
+     *      findComputerMove(position:CheckersModel) returns the computer's move in a copy of the position
+     *      getExpectedMove(position:CheckersModel) returns the move the computer expects in a copy of the
+     *          position, and ponder(position:CheckersModel) searches a position ahead of time
+     *      takeBack() takes back the last turn, returns false if there is none
+     *      getHistory(start:CheckersModel) returns the turns played since the board was set, one move per
+     *          turn, and sets the passed model to the position before them
+     *      isValidLocation(location:int[]) returns true if passed 2-element array is a valid location  
+     *      toSquare(location:int[]) and toLocation(square:int) convert between locations and the squares
+     *          of packed moves
+     *      takeChangedSquares() returns the squares whose piece or selection changed since it was last called
+     *        
+     *------CHANGELOG REVISION 1 ----------------------------------------------------------------------  
+     *        
+     *      We have added 2 new public boolean attributes, isWhiteTurn and jumpOnlyMode. isWhiteTurn is true  
+     *      when it is the white player's turn to play during gameplay. jumpOnlyMode is true when a player  
+     *      has just jumped a piece and can perform a second jump. Both are public and accessed by the ViewController.  
+     *       
+     *      Locations are now 2-element int arrays, of the row followed by the column. Previously they were  
+     *      integers in the bounds [0,31], but our code is greatly simplified by choosing to use a  
+     *      (row,column) tuple. The only disadvantage is that we must check that each location is valid  
+     *      before accessing its piece.  
+     *        
+     *      getPiece(location) replaced with separate getPieceColour, getPieceKinged, and getKingSelected  
+     *      methods so that our view controller class never needs to access Piece methods. This improves our  
+     *      uses hierarchy immensely, and simplifies the calls in the ViewController.  
+     *        
+     *      isValidLocation(location:int[]) checks whether a passed location corresponds with a valid square,  
+     *      and returns a boolean. It is a public method so that the ViewController can call it  
+     *      before accessing pieces at locations.  
+     *         
+     *      getValidMoves(location:int[]) returns an int[] of size at most 4 of locations (also int[]'s) that  
+     *      the piece at the passed location can move to, including jumps. No variables are updated.  
+     *        
+     *      movePiece(location:int[], newLocation:int[]) moves the piece at location to its newLocation (gathered  
+     *      from a previous call to getValidMoves), taking a piece if necessary, and kinging the moved piece  
+     *      if necessary. It updates isWhiteTurn and jumpOnlyMode, and returns void.  
+     *        
+     *      boolean loadGame(file:File) takes a text file as input and loads the corresponding game. If file is  
+     *      invalid, then it returns false, otherwise true.  
+     *        
+     *------------------------------------------------------------------------------------------------- 
+     * 
+     *------CHANGELOG REVISION 2 ---------------------------------------------------------------------- 
+     * 
+     *      2 public booleans have been added, playerIsWhite and vsComputer. playerIsWhite stores 
+     *      the colour the player chooses if playing vs computer, and vsComputer is true if game is against 
+     *      AI. 
+     *       
+     *      getValidMoves(location:int[]) has been modified to solve testing case 4.3; now when a non-king 
+     *      jumps into a kinging spot it can't jump again, as per requirements. 
+     *       
+     *      movePiece(location:int[], newLocation:int[]) now calls the computer to do a second (or third etc)
+     *      jump if they have the opportunity
+     *       
+     *      computerMove(location:int[]) finds all possible moves for the computer to make and randomly selects 
+     *      one, then makes it. If computer is in midst of double/triple-jumping then the passed location is not 
+     *      null, and stores the current location of the piece, to ensure no other jumping moves are selected. 
+     *       
+     *      loadGame(file:File) now loads in the new boolean attributes. 
+     *       
+     *      otherPieceCanJump(location:int[]) returns false if either the current piece has a jumping move 
+     *      or if no pieces have jumping moves. If some other piece on the board can jump, then true is returned 
+     *      and the player must choose one of those jumping moves. 
+     * 
+     *------------------------------------------------------------------------------------------------- 
+     *         
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *
+     *      The board is now stored as bitboards instead of a Piece[8][8] array. Each of the 32 valid
+     *      squares is given an index (row*4 + col/2), and whitePieces, blackPieces, kingPieces and
+     *      selectedSquares each hold one bit per square. The Piece class is no longer needed and has
+     *      been removed. All public methods still take and return the same location and colour types,
+     *      so the ViewController is unaffected.
+     *
+     *      getValidMoves(location:int[]) and otherPieceCanJump(location:int[]) now find moves and jumps
+     *      by shifting and masking the bitboards, rather than comparing colour strings square by square.
+     *
+     *      generateMoves(moveBuffer:int[]) writes every legal move of the current player into the passed
+     *      array as packed ints (see the Move class) and returns how many there are. It allocates nothing,
+     *      so callers can reuse one buffer of size MAX_MOVES. getValidMoves and computerMove now use it.
+     *
+     *      makeMove(move:int) and unmakeMove() make and take back a packed move without copying
+     *      the board, so the new SearchEngine can search ahead on the model itself. computerMove now asks
+     *      the SearchEngine for the best move instead of picking at random, looking up to DEFAULT_SEARCH_DEPTH
+     *      moves ahead for at most DEFAULT_SEARCH_MILLIS, unless changed with setSearchDepth(depth:int) and
+     *      setSearchTime(milliseconds:long), and with setSearchThreads(threads:int) it can search on several
+     *      threads. The engine is only created on the computer's first move, and a copy constructor lets
+     *      other threads search a copy of the position. getWhitePieces(), getBlackPieces()
+     *      and getKingPieces() return the bitboards for the engine's evaluation.
+     *
+     *      getHash() returns a Zobrist hash of the position, so the engine's TranspositionTable can
+     *      recognise positions it has already searched. The hash of the pieces is updated as pieces are
+     *      set, moved, made and unmade; the turn and the double-jumping piece are added on each call.
+     *
+     *      Every made move pushes a one-int undo record onto a stack: the packed move, which already holds
+     *      the taken square, whether it was a king and whether the piece was kinged, and the turn and jump
+     *      state before the move. unmakeMove() pops the last record, so takes no arguments. movePiece now
+     *      packs its move and calls makeMove, so the GUI's moves can be taken back too, and takeBack() and
+     *      canTakeBack() undo whole turns for the GUI's take back button. setPiece and defaultBoard clear
+     *      the records, since they change the board outside of moves.
+     *
+     *      Packed moves are now longs holding a piece's whole turn: a double (or triple etc) jump is one move
+     *      taking every piece on its path, so generateMoves(moveBuffer:long[]) returns every branch of every
+     *      jump, stopping a path where a man is kinged. The search treats each turn as one move, and
+     *      computerMove() makes the engine's move in one go, so movePiece no longer calls it back for a second
+     *      jump and computerMove no longer takes the double-jumping piece's location. movePiece still makes
+     *      one jump at a time for the GUI, setting jumpOnlyMode when the piece can jump again, and
+     *      generateMoves in jumpOnlyMode returns the rest of the jumping piece's paths. The undo record now
+     *      also holds which pieces taken were kings, since a long move has no room for them.
+     *
+     *      generateLegalMoves(white:boolean, moveBuffer:long[]) lists the legal moves of either side in one
+     *      pass: the pieces able to jump are found with one set of bitboard shifts, their jump paths are
+     *      listed, and steps are only listed if no piece can jump. generateMoves(moveBuffer:long[]) lists the
+     *      moves of the side to move with it, so the SearchEngine uses it, and the GUI uses it to check a
+     *      clicked piece may move and whether a player has run out of moves.
+     *
+     *      pieceCounts keeps the number of men and kings of each colour, updated as pieces are set, moved,
+     *      made and unmade, so getNumberOfPieces and the new getNumberOfKings(colour:String) don't look at
+     *      the board. isGameOver() and winner() tell whether the player to move has lost, using the move
+     *      generator's bitboard tests for a jump or a step without listing any moves, so the GUI and headless
+     *      games check for the end of the game in constant time.
+     *
+     *      Positions can be saved in a compact binary format, POSITION_BYTES (23) bytes instead of a text
+     *      line per square:
+     *          bytes 0-3   magic number, the characters CHKR
+     *          byte 4      format version, BINARY_VERSION
+     *          byte 5      flags: bit 0 isWhiteTurn, bit 1 vsComputer, bit 2 playerIsWhite, bit 3 jumpOnlyMode
+     *          byte 6      square of the double-jumping piece, or -1
+     *          bytes 7-18  whitePieces, blackPieces and kingPieces bitboards, big-endian ints
+     *          bytes 19-22 CRC32 checksum of bytes 0-18
+     *      writePosition(buffer:ByteBuffer) and readPosition(buffer:ByteBuffer) encode and decode one
+     *      position, so many can be packed into one buffer. readPosition checks the magic number, version,
+     *      checksum and that the bitboards make a possible position, and leaves the model unchanged if not.
+     *      saveBinaryGame(file:File) and loadBinaryGame(file:File) write and read one position through a
+     *      FileChannel. The text format of loadGame is still read.
+     *
+     *      getHistory(start:CheckersModel) returns the moves on the undo stack, joining the single jumps the
+     *      GUI makes one click at a time into one move per turn, and sets the passed model to the position
+     *      before them, so a game played in the GUI can be exported. setPosition(white:int, black:int,
+     *      kings:int, whiteToMove:boolean) sets up a position from bitboards, checking it is possible, for
+     *      positions read from other formats.
+     *
+     *      findComputerMove(position:CheckersModel) asks the engine for its move in a copy of the position
+     *      without making it, so the GUI can search on a background thread while the board is still drawn
+     *      from the model. The search stops early if its thread is interrupted.
+     *
+     *      getExpectedMove(position:CheckersModel) and ponder(position:CheckersModel) let the computer think
+     *      on the player's time: the GUI asks which reply the computer expects, and searches the position
+     *      after it until the player moves. If the player made that move, findComputerMove finds the
+     *      pondered results in the engine's table.
+     *
+     *      takeChangedSquares() tells the GUI which squares to redraw. The bitboards the GUI last drew are
+     *      kept in drawnWhitePieces, drawnBlackPieces, drawnKingPieces and drawnSelectedSquares, and each
+     *      call returns the squares that differ from them in any of the four and remembers the current
+     *      ones. Nothing is recorded as moves are made, so the search pays nothing for it.
+     *
+     *      getValidMoves(location:int[]) adds the time of one call in VALID_MOVES_SAMPLE to the Metrics
+     *      VALID_MOVES histogram, so its latency can be watched through JMX with the computer's thinking
+     *      time. Timing every call would triple its cost.
+     *
+     *      computerMove() and findComputerMove(position:CheckersModel) search through the new private
+     *      searchComputerMove(position:CheckersModel), which records each search as a Java Flight Recorder
+     *      ComputerMoveEvent with the depth reached, the nodes visited and the move chosen. The event's fields
+     *      are only filled in when it is recorded, so it costs nothing otherwise.
+     *
+     *      The engine's evaluation now comes from EvaluationWeights, which can be read from a weight file.
+     *      Every term of it but mobility is a value per piece type and square, so the model keeps
+     *      squareScore, the sum of its pieces' values, up to date in makeMove, unmakeMove (from scoreStack,
+     *      beside the hash stack), addPiece, clearSquares and setBoard, and getSquareScore() returns it.
+     *      countSteps(white:boolean) counts a side's steps with four bitboard shifts for the mobility term,
+     *      so a position is scored in constant time. setWeights(weights:EvaluationWeights) changes the
+     *      weights of the model and its engine, getDefault() being used until then. It takes back and
+     *      remakes the moves on the undo stack, so scores restored by a later unmakeMove or takeBack are
+     *      also the new weights'.
+     *
+     *-------------------------------------------------------------------------------------------------
+     *
+     */
+                
+    //bitboards are main data structure of model, one bit per valid square (row*4 + col/2)
+    private int whitePieces = 0; //squares holding a white piece
+    private int blackPieces = 0; //squares holding a black piece
+    private int kingPieces = 0; //squares holding a kinged piece of either colour
+    private int selectedSquares = 0; //squares currently selected in the UI
+
+    //bitboards as the UI last drew them, see takeChangedSquares
+    private int drawnWhitePieces = 0;
+    private int drawnBlackPieces = 0;
+    private int drawnKingPieces = 0;
+    private int drawnSelectedSquares = 0;
+
+    //masks used to shift pieces diagonally; even rows hold cols 1,3,5,7 and odd rows hold cols 0,2,4,6
+    private static final int EVEN_ROWS = 0x0F0F0F0F;
+    private static final int ODD_ROWS = 0xF0F0F0F0;
+    private static final int EVEN_ROWS_NOT_RIGHT_EDGE = 0x07070707;
+    private static final int ODD_ROWS_NOT_LEFT_EDGE = 0xE0E0E0E0;
+
+    //rows where each colour's men are kinged
+    private static final int WHITE_KING_ROW = 0x0000000F;
+    private static final int BLACK_KING_ROW = 0xF0000000;
+
+    //the four diagonal directions a piece can move in, opposite directions add up to 3
+    private static final int UP_RIGHT = 0;
+    private static final int UP_LEFT = 1;
+    private static final int DOWN_RIGHT = 2;
+    private static final int DOWN_LEFT = 3;
+
+    //order directions are checked in, forward moves first and then backward moves for kings
+    private static final int[] WHITE_DIRECTIONS = {UP_RIGHT, UP_LEFT, DOWN_RIGHT, DOWN_LEFT};
+    private static final int[] BLACK_DIRECTIONS = {DOWN_RIGHT, DOWN_LEFT, UP_RIGHT, UP_LEFT};
+
+    public boolean isWhiteTurn = true; //true if white player's turn
+    public boolean jumpOnlyMode = false; //true if player is double-jumping
+    public boolean playerIsWhite = true; //true if player chooses white vs computer
+    public boolean vsComputer = false; //true if player playing against computer
+
+    //compact binary position format, see writePosition
+    public static final int POSITION_BYTES = 23;
+    private static final int BINARY_MAGIC = 0x43484B52; //CHKR
+    private static final byte BINARY_VERSION = 1;
+
+    //size of move buffers, 12 kings have at most 48 steps, and jump paths are kept within it
+    public static final int MAX_MOVES = 64;
+    private static final int VALID_MOVES_SAMPLE = 64; //getValidMoves times one call in this many, a power of 2
+
+    private int jumpingSquare = -1; //square of the piece that is double-jumping, -1 if none
+    private final long[] moveBuffer = new long[MAX_MOVES]; //reused by getValidMoves
+    private int validMovesCalls = 0; //calls of getValidMoves, to pick the ones timed
+
+    //undo record of each made move, newest last: the packed move, and the pieces taken that were kings
+    //in bits 0-31 and the turn and jump state before the move in bits 32-39 (bit 32 isWhiteTurn,
+    //bit 33 jumpOnlyMode, bits 34-39 jumpingSquare + 1)
+    private static final int UNDO_STATE_SHIFT = 32;
+    private long[] undoMoves = new long[64];
+    private long[] undoStates = new long[64];
+    private long[] hashStack = new long[64]; //piece hash before each made move
+    private int[] scoreStack = new int[64]; //square score before each made move
+    private int undoStackSize = 0;
+
+    //random Zobrist keys, a position's hash is the XOR of the keys of each piece on its square
+    private static final long[][] PIECE_KEYS = new long[4][32];
+    private static final long[] JUMPING_KEYS = new long[32];
+    private static final long BLACK_TURN_KEY;
+    private long pieceHash = 0; //XOR of PIECE_KEYS of every piece on the board
+    private int[] pieceCounts = new int[4]; //number of pieces of each type, indexed like PIECE_KEYS
+
+    //weights the engine evaluates positions with, and the sum of the squareValues of every piece on the board
+    private EvaluationWeights weights = EvaluationWeights.getDefault();
+    private int[][] squareValues = this.weights.squareValues; //the weights' values of each piece type on each square
+    private int squareScore = 0;
+
+    static {
+        //fixed seed, so hashes are the same every run
+        Random random = new Random(0x436865636B657273L);
+        for (int type = 0; type < 4; type++)
+            for (int square = 0; square < 32; square++)
+                PIECE_KEYS[type][square] = random.nextLong();
+        for (int square = 0; square < 32; square++)
+            JUMPING_KEYS[square] = random.nextLong();
+        BLACK_TURN_KEY = random.nextLong();
+    }
+
+    //how far ahead and how long the computer searches by default
+    public static final int DEFAULT_SEARCH_DEPTH = 24;
+    public static final long DEFAULT_SEARCH_MILLIS = 500;
+    private SearchEngine engine = null; //chooses computer moves, created on the computer's first move
+    private int searchDepth = DEFAULT_SEARCH_DEPTH; //furthest ahead the computer looks
+    private long searchMillis = DEFAULT_SEARCH_MILLIS; //longest the computer thinks about a move
+    private int searchThreads = 1; //number of threads the computer searches with
+
+    /**PUBLIC********************************************/
+    /* default constructor, initializes an empty board
+    /* Rev.1:no change except accommodating new location type
+    /* Rev.2: no changes made in revision 2
+    /* Rev.3: all bitboards start empty, no pieces created
+    /****************************************************/
+    CheckersModel() {
+    }
+
+    /**PUBLIC********************************************/
+    /* copy constructor, copies the position and game
+    /* settings of the passed model but not its history,
+    /* so the copy can't unmake moves made before the copy
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    CheckersModel(CheckersModel original) {
+        this.whitePieces = original.whitePieces;
+        this.blackPieces = original.blackPieces;
+        this.kingPieces = original.kingPieces;
+        this.selectedSquares = original.selectedSquares;
+        this.pieceHash = original.pieceHash;
+        this.pieceCounts = original.pieceCounts.clone();
+        this.weights = original.weights;
+        this.squareValues = original.squareValues;
+        this.squareScore = original.squareScore;
+        this.isWhiteTurn = original.isWhiteTurn;
+        this.jumpOnlyMode = original.jumpOnlyMode;
+        this.jumpingSquare = original.jumpingSquare;
+        this.playerIsWhite = original.playerIsWhite;
+        this.vsComputer = original.vsComputer;
+        this.searchDepth = original.searchDepth;
+        this.searchMillis = original.searchMillis;
+        this.searchThreads = original.searchThreads;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the piece's colour at specified location
+    /* Rev.1: new method in revision 1
+    /* Rev.2: no changes made in revision 2
+    /* Rev.3: reads colour from the bitboards
+    /****************************************************/
+    public String getPieceColour(int[] loc) {
+
+        //returns null if location is invalid
+        if (!isValidLocation(loc))
+            return null;
+
+        //return the pieces colour
+        int square = 1 << toSquare(loc);
+        if ((whitePieces & square) != 0)
+            return "WHITE";
+        if ((blackPieces & square) != 0)
+            return "BLACK";
+        return "NONE";
+    }
+
+    /**PUBLIC********************************************/
+    /* returns true if piece kinged at specified location
+    /* Rev.1: new method in revision 1
+    /* Rev.2: no changes made in revision 2
+    /* Rev.3: reads kinged status from the bitboards
+    /****************************************************/
+    public boolean getPieceKinged(int[] loc) {
+
+        //return true if piece is kinged and location is valid
+        if (isValidLocation(loc))
+            return (kingPieces & (1 << toSquare(loc))) != 0;
+
+        //returns false otherwise
+        return false;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns true if piece selected at specified location
+    /* Rev.1: new method in revision 1
+    /* Rev.2: no changes made in revision 2
+    /* Rev.3: reads selected status from the bitboards
+    /****************************************************/
+    public boolean getPieceSelected(int[] loc) {
+
+        //return true if piece is selected and location is valid
+        if (isValidLocation(loc))
+            return (selectedSquares & (1 << toSquare(loc))) != 0;
+
+        //returns false otherwise
+        return false;
+    }
+
+    /**PUBLIC********************************************/
+    /* sets the piece at passed location to have specified
+    /* colour and kinged status.
+    /* Rev.1: no change beyond accommodating new location type
+    /* Rev.2: no changes made in revision 2
+    /* Rev.3: updates the bitboards and hash, any colour
+    /* other than WHITE or BLACK leaves the square empty.
+    /* Moves made before can no longer be taken back.
+    /****************************************************/
+    public void setPiece(int loc[], String colour, boolean isKinged) {
+
+        //make sure location is valid
+        if (!isValidLocation(loc))
+            return;
+
+        //undo records don't cover pieces set by hand
+        undoStackSize = 0;
+
+        //clear the square, a newly placed piece is never selected
+        int square = 1 << toSquare(loc);
+        clearSquares(square);
+
+        //place the new piece, if any
+        if (colour.equals("WHITE") || colour.equals("BLACK"))
+            addPiece(toSquare(loc), colour.equals("WHITE"), isKinged);
+    }
+
+    /**PUBLIC********************************************/
+    /* returns a bit for each square whose piece, king or
+    /* selection changed since the last call, or since the
+    /* board was empty, and remembers the current board
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public int takeChangedSquares() {
+        int changed = (whitePieces ^ drawnWhitePieces) | (blackPieces ^ drawnBlackPieces)
+                | (kingPieces ^ drawnKingPieces) | (selectedSquares ^ drawnSelectedSquares);
+        drawnWhitePieces = whitePieces;
+        drawnBlackPieces = blackPieces;
+        drawnKingPieces = kingPieces;
+        drawnSelectedSquares = selectedSquares;
+        return changed;
+    }
+
+    /**PUBLIC********************************************/
+    /* selects the piece at the specified location
+    /* Rev.1: no change beyond accommodating new location type
+    /* Rev.2: no changes made in revision 2
+    /* Rev.3: sets the square's bit in selectedSquares
+    /****************************************************/
+    public void selectPiece(int loc[]) {
+
+        //make sure loc is valid
+        if (isValidLocation(loc))
+            selectedSquares |= 1 << toSquare(loc);
+    }
+
+    /**PUBLIC********************************************/
+    /* de-selects all pieces
+    /* Rev.1: no change beyond accommodating new location type
+    /* Rev.2: no changes made in revision 2
+    /* Rev.3: clears selectedSquares
+    /****************************************************/
+    public void deselectAll() {
+        selectedSquares = 0;
+    }
+
+    /**PUBLIC********************************************/
+    /* sets up a default board, with 12 white and 12
+    /* black pieces in their proper locations.
+    /* Rev.1: no change beyond accommodating new location type
+    /* Rev.2: no changes made in revision 2
+    /* Rev.3: black fills rows 0-2 (squares 0-11) and white
+    /* fills rows 5-7 (squares 20-31), no moves can be
+    /* taken back
+    /****************************************************/
+    public void defaultBoard() {
+        setBoard(0xFFF00000, 0x00000FFF, 0);
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the number of pieces of the specified colour
+    /* Rev.1: no change beyond accommodating new location type
+    /* Rev.2: no changes made in revision 2
+    /* Rev.3: reads the colour's piece counts, which are
+    /* kept up to date as pieces change
+    /****************************************************/
+    public int getNumberOfPieces(String colour) {
+        if (colour.equals("WHITE"))
+            return pieceCounts[pieceType(true, false)] + pieceCounts[pieceType(true, true)];
+        if (colour.equals("BLACK"))
+            return pieceCounts[pieceType(false, false)] + pieceCounts[pieceType(false, true)];
+        return 32 - Integer.bitCount(whitePieces | blackPieces);
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the number of kings of the specified colour
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public int getNumberOfKings(String colour) {
+        if (colour.equals("WHITE") || colour.equals("BLACK"))
+            return pieceCounts[pieceType(colour.equals("WHITE"), true)];
+        return 0;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns true if the player whose turn it is has no
+    /* pieces or can't move any of them, and so has lost
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public boolean isGameOver() {
+        if (getNumberOfPieces(isWhiteTurn ? "WHITE" : "BLACK") == 0)
+            return true;
+
+        //a double-jumping piece always has a jump left
+        if (this.jumpOnlyMode)
+            return false;
+
+        //the same tests the move generator starts with, any piece that can jump or step
+        int movers = isWhiteTurn ? whitePieces : blackPieces;
+        int upMovers = isWhiteTurn ? movers : movers & kingPieces;
+        int downMovers = isWhiteTurn ? movers & kingPieces : movers;
+        int empty = ~(whitePieces | blackPieces);
+        return getJumpingPieces(isWhiteTurn) == 0
+                && ((upRight(upMovers) | upLeft(upMovers) | downRight(downMovers) | downLeft(downMovers)) & empty) == 0;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the colour of the player who has won, or
+    /* NONE if the game isn't over
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public String winner() {
+        if (!isGameOver())
+            return "NONE";
+        return isWhiteTurn ? "BLACK" : "WHITE";
+    }
+
+    /**PUBLIC********************************************/
+    /* returns array of valid moves, null if no valid moves
+    /* Rev.1: new method in revision 1
+    /* Rev.2: solves testing case 4.3; now when a non-king
+    /* jumps into a kinging spot it can't jump again, as
+    /* per requirements.
+    /* Rev.3: finds moves by shifting the piece's bit in each
+    /* direction and masking against the bitboards, using the
+    /* packed move generator. One call in VALID_MOVES_SAMPLE
+    /* is timed for Metrics.
+    /****************************************************/
+    public int[][] getValidMoves(int[] loc) {
+        //timing every call would cost more than the call itself
+        boolean timed = (++this.validMovesCalls & (VALID_MOVES_SAMPLE - 1)) == 0;
+        long start = timed ? System.nanoTime() : 0;
+
+        //only valid squares have moves, and if there are none return null
+        int numberOfMoves = isValidLocation(loc) ? generatePieceMoves(toSquare(loc), this.moveBuffer) : 0;
+        int[][] validMoves = null;
+
+        //otherwise return the valid moves as locations
+        if (numberOfMoves > 0) {
+            validMoves = new int[numberOfMoves][];
+            for (int i = 0; i < numberOfMoves; i++)
+                validMoves[i] = toLocation(Move.getTo(this.moveBuffer[i]));
+        }
+
+        if (timed)
+            Metrics.VALID_MOVES.record(System.nanoTime() - start);
+        return validMoves;
+    }
+
+    /**PUBLIC********************************************/
+    /* writes every legal move of the player whose turn it
+    /* is into moveBuffer, see generateLegalMoves
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public int generateMoves(long[] moveBuffer) {
+        return generateLegalMoves(this.isWhiteTurn, moveBuffer);
+    }
+
+    /**PUBLIC********************************************/
+    /* writes every legal move of the passed side into
+    /* moveBuffer as packed moves (see Move), and returns
+    /* how many were written. Jumps are mandatory, so only
+    /* jumps are returned if any piece can jump, each with
+    /* its whole path of pieces taken. If the side is
+    /* double-jumping, only that piece's jumps are legal.
+    /* moveBuffer must hold at least MAX_MOVES moves.
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public int generateLegalMoves(boolean white, long[] moveBuffer) {
+        int movers = white ? whitePieces : blackPieces;
+
+        //when double-jumping, only the jumping piece may move
+        boolean jumpOnly = this.jumpOnlyMode && white == this.isWhiteTurn;
+        if (jumpOnly && this.jumpingSquare >= 0)
+            movers &= 1 << this.jumpingSquare;
+
+        //add every path of every piece that can jump, and only add steps if there are none
+        int jumpers = getJumpingPieces(white) & movers;
+        if (jumpers != 0 || jumpOnly) {
+            int numberOfMoves = 0;
+            while (jumpers != 0) {
+                int square = Integer.numberOfTrailingZeros(jumpers);
+                jumpers &= jumpers - 1;
+                numberOfMoves = addJumpPaths(square, square, 0, moveBuffer, numberOfMoves);
+            }
+            return numberOfMoves;
+        }
+
+        //white men move up the board and black men move down, kings move both ways
+        int upMovers = white ? movers : movers & kingPieces;
+        int downMovers = white ? movers & kingPieces : movers;
+        int empty = ~(whitePieces | blackPieces);
+        int kingRow = white ? WHITE_KING_ROW : BLACK_KING_ROW;
+
+        int numberOfMoves = addSteps(upMovers, UP_RIGHT, empty, kingRow, moveBuffer, 0);
+        numberOfMoves = addSteps(upMovers, UP_LEFT, empty, kingRow, moveBuffer, numberOfMoves);
+        numberOfMoves = addSteps(downMovers, DOWN_RIGHT, empty, kingRow, moveBuffer, numberOfMoves);
+        return addSteps(downMovers, DOWN_LEFT, empty, kingRow, moveBuffer, numberOfMoves);
+    }
+
+    /**PUBLIC********************************************/
+    /* moves a piece from loc to newLoc, kinging and taking
+    /* piece if necessary
+    /* Rev.1: new method in revision 1
+    /* Rev.2: calls computer to double jump if necessary
+    /* Rev.3: packs the move and makes it with makeMove, so
+    /* it can be taken back. The computer makes its whole
+    /* jump in computerMove, so isn't called from here.
+    /****************************************************/
+    public void movePiece(int[] loc, int[] newLoc) {
+
+        if (isValidLocation(loc) && isValidLocation(newLoc)) {
+
+            //pack the move, kinging the piece if it reaches the far row
+            int from = toSquare(loc);
+            int to = toSquare(newLoc);
+            boolean promotion = (kingPieces & (1 << from)) == 0 && ((1 << to) & (isWhiteTurn ? WHITE_KING_ROW : BLACK_KING_ROW)) != 0;
+            long move = Move.step(from, to, promotion);
+
+            //if player takes a piece
+            if (Math.abs(newLoc[0] - loc[0]) > 1) {
+                int captured = (Math.min(loc[0],newLoc[0]) + 1) * 4 + (Math.min(loc[1],newLoc[1]) + 1) / 2;
+                move = Move.jump(from, to, 1 << captured, promotion);
+            }
+
+            //a moved piece is never selected
+            selectedSquares &= ~((1 << from) | (1 << to));
+            makeMove(move);
+        }
+    }
+
+    /**PUBLIC********************************************/
+    /* makes a move for the computer; AI.
+    /* Rev.2: new method in revision 2
+    /* Rev.3: the search engine chooses the move, instead
+    /* of picking one at random, and a double (or triple
+    /* etc) jump is made at once, so the location of the
+    /* double-jumping piece is no longer passed. The search
+    /* is recorded as a ComputerMoveEvent.
+    /****************************************************/
+    public void computerMove() {
+
+        //ask the engine for the best move, if there is one
+        long move = searchComputerMove(this);
+        if (move == SearchEngine.NO_MOVE)
+            return;
+
+        //make the whole move, including any further jumps
+        selectedSquares = 0;
+        makeMove(move);
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the computer's move in the passed position,
+    /* a copy of this model's, without making it, or NO_MOVE
+    /* if there is none. Only the copy is searched, so this
+    /* may run on another thread while the model is used.
+    /* The search is recorded as a ComputerMoveEvent.
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public long findComputerMove(CheckersModel position) {
+        return searchComputerMove(position);
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the move the computer expects to be played
+    /* in the passed position, a copy of this model's, or
+    /* NO_MOVE if it has no idea. Must not be called while
+    /* findComputerMove or ponder runs.
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public long getExpectedMove(CheckersModel position) {
+        return getEngine().getExpectedMove(position);
+    }
+
+    /**PUBLIC********************************************/
+    /* searches the passed position, a copy of this model's
+    /* with the computer to move, until the thread running
+    /* it is interrupted, so a findComputerMove in the same
+    /* position afterwards finds the results already known
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public void ponder(CheckersModel position) {
+        getEngine().ponder(position);
+    }
+
+    /**PUBLIC********************************************/
+    /* sets the furthest ahead the computer looks
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public void setSearchDepth(int depth) {
+        this.searchDepth = depth;
+        if (this.engine != null)
+            this.engine.setDepth(depth);
+    }
+
+    /**PUBLIC********************************************/
+    /* sets the longest the computer may think about a move
+    /* in milliseconds, 0 for no limit
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public void setSearchTime(long milliseconds) {
+        this.searchMillis = milliseconds;
+        if (this.engine != null)
+            this.engine.setTimeLimit(milliseconds);
+    }
+
+    /**PUBLIC********************************************/
+    /* sets how many threads the computer searches with
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public void setSearchThreads(int threads) {
+        this.searchThreads = threads;
+        if (this.engine != null)
+            this.engine.setThreads(threads);
+    }
+
+    /**PUBLIC********************************************/
+    /* makes the passed packed move (from generateMoves)
+    /* without any checks, taking and kinging pieces and
+    /* updating the turn. Moves from generateMoves end the
+    /* turn; a single jump from movePiece after which the
+    /* piece can jump again doesn't switch the turn, and
+    /* sets jumpOnlyMode instead.
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public void makeMove(long move) {
+        int captured = Move.getCaptured(move);
+
+        //push the undo record, the move, kings taken, and the turn and jump state before it
+        if (this.undoStackSize == this.undoMoves.length) {
+            this.undoMoves = Arrays.copyOf(this.undoMoves, this.undoStackSize * 2);
+            this.undoStates = Arrays.copyOf(this.undoStates, this.undoStackSize * 2);
+            this.hashStack = Arrays.copyOf(this.hashStack, this.undoStackSize * 2);
+            this.scoreStack = Arrays.copyOf(this.scoreStack, this.undoStackSize * 2);
+        }
+        long state = (this.isWhiteTurn ? 1 : 0) | (this.jumpOnlyMode ? 2 : 0) | ((this.jumpingSquare + 1) << 2);
+        this.hashStack[this.undoStackSize] = this.pieceHash;
+        this.scoreStack[this.undoStackSize] = this.squareScore;
+        this.undoMoves[this.undoStackSize] = move;
+        this.undoStates[this.undoStackSize++] = (captured & kingPieces & 0xFFFFFFFFL) | (state << UNDO_STATE_SHIFT);
+
+        //move the piece, and its king if it is one. A king can end a jump where it started, moving nowhere
+        int from = 1 << Move.getFrom(move);
+        int to = 1 << Move.getTo(move);
+        boolean wasKinged = (kingPieces & from) != 0;
+        if (this.isWhiteTurn)
+            whitePieces ^= from ^ to;
+        else
+            blackPieces ^= from ^ to;
+        if (wasKinged)
+            kingPieces ^= from ^ to;
+        else if (Move.isPromotion(move)) {
+            kingPieces |= to;
+            pieceCounts[pieceType(this.isWhiteTurn, false)]--;
+            pieceCounts[pieceType(this.isWhiteTurn, true)]++;
+        }
+        int fromType = pieceType(this.isWhiteTurn, wasKinged);
+        int toType = pieceType(this.isWhiteTurn, wasKinged || Move.isPromotion(move));
+        this.pieceHash ^= PIECE_KEYS[fromType][Move.getFrom(move)] ^ PIECE_KEYS[toType][Move.getTo(move)];
+        this.squareScore += this.squareValues[toType][Move.getTo(move)]
+                - this.squareValues[fromType][Move.getFrom(move)];
+
+        //take the jumped pieces, and keep jumping with the same piece if possible unless it was just kinged
+        if (captured != 0) {
+            this.pieceHash ^= hashPieces(captured);
+            this.squareScore -= scorePieces(captured);
+            pieceCounts[pieceType(!this.isWhiteTurn, false)] -= Integer.bitCount(captured & ~kingPieces);
+            pieceCounts[pieceType(!this.isWhiteTurn, true)] -= Integer.bitCount(captured & kingPieces);
+            whitePieces &= ~captured;
+            blackPieces &= ~captured;
+            kingPieces &= ~captured;
+            if (!Move.isPromotion(move) && (getJumpingPieces(this.isWhiteTurn) & to) != 0) {
+                this.jumpOnlyMode = true;
+                this.jumpingSquare = Move.getTo(move);
+                return;
+            }
+        }
+
+        //switch turns
+        this.jumpOnlyMode = false;
+        this.jumpingSquare = -1;
+        this.isWhiteTurn = !this.isWhiteTurn;
+    }
+
+    /**PUBLIC********************************************/
+    /* takes back the last move made with makeMove, using
+    /* its undo record. Must not be called if no moves
+    /* have been made.
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public void unmakeMove() {
+
+        //pop the undo record, and restore the turn and jump state
+        long move = this.undoMoves[--this.undoStackSize];
+        long record = this.undoStates[this.undoStackSize];
+        int state = (int) (record >>> UNDO_STATE_SHIFT);
+        this.pieceHash = this.hashStack[this.undoStackSize];
+        this.squareScore = this.scoreStack[this.undoStackSize];
+        this.isWhiteTurn = (state & 1) != 0;
+        this.jumpOnlyMode = (state & 2) != 0;
+        this.jumpingSquare = (state >> 2) - 1;
+
+        //move the piece back, unkinging it if it was kinged by the move
+        int from = 1 << Move.getFrom(move);
+        int to = 1 << Move.getTo(move);
+        if (Move.isPromotion(move)) {
+            kingPieces &= ~to;
+            pieceCounts[pieceType(this.isWhiteTurn, false)]++;
+            pieceCounts[pieceType(this.isWhiteTurn, true)]--;
+        }
+        else if ((kingPieces & to) != 0)
+            kingPieces ^= from ^ to;
+        if (this.isWhiteTurn)
+            whitePieces ^= from ^ to;
+        else
+            blackPieces ^= from ^ to;
+
+        //put back the jumped pieces, and the kings among them
+        int captured = Move.getCaptured(move);
+        if (this.isWhiteTurn)
+            blackPieces |= captured;
+        else
+            whitePieces |= captured;
+        kingPieces |= (int) record;
+        pieceCounts[pieceType(!this.isWhiteTurn, false)] += Integer.bitCount(captured & ~(int) record);
+        pieceCounts[pieceType(!this.isWhiteTurn, true)] += Integer.bitCount((int) record);
+    }
+
+    /**PUBLIC********************************************/
+    /* takes back the last turn, or the part of the turn
+    /* played so far if a piece is double jumping, and
+    /* returns false if there was nothing to take back
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public boolean takeBack() {
+        if (this.undoStackSize == 0)
+            return false;
+
+        //the first move of a turn is the one made outside jump only mode
+        long state;
+        do {
+            state = this.undoStates[this.undoStackSize - 1] >>> UNDO_STATE_SHIFT;
+            unmakeMove();
+        } while ((state & 2) != 0 && this.undoStackSize > 0);
+        this.selectedSquares = 0;
+        return true;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns true if there is a move to take back
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public boolean canTakeBack() {
+        return this.undoStackSize > 0;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the turns played since the board was last
+    /* set, one move per turn, and sets the passed model to
+    /* the position before the first of them
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public long[] getHistory(CheckersModel start) {
+        int numberOfMoves = this.undoStackSize;
+        long[] made = Arrays.copyOf(this.undoMoves, numberOfMoves);
+        long[] states = Arrays.copyOf(this.undoStates, numberOfMoves);
+        int selected = this.selectedSquares;
+
+        //take every move back to reach the start, then make them again
+        while (this.undoStackSize > 0)
+            unmakeMove();
+        ByteBuffer position = ByteBuffer.allocate(POSITION_BYTES);
+        writePosition(position);
+        position.flip();
+        start.readPosition(position);
+        for (long move : made)
+            makeMove(move);
+        this.selectedSquares = selected;
+
+        //a jump made in jumpOnlyMode continues the turn of the move before it
+        long[] turns = new long[numberOfMoves];
+        int numberOfTurns = 0;
+        for (int i = 0; i < numberOfMoves; i++) {
+            boolean continues = ((states[i] >>> UNDO_STATE_SHIFT) & 2) != 0;
+            if (continues && numberOfTurns > 0) {
+                long last = turns[numberOfTurns - 1];
+                turns[numberOfTurns - 1] = Move.jump(Move.getFrom(last), Move.getTo(made[i]),
+                        Move.getCaptured(last) | Move.getCaptured(made[i]), Move.isPromotion(made[i]));
+            }
+            else
+                turns[numberOfTurns++] = made[i];
+        }
+        return Arrays.copyOf(turns, numberOfTurns);
+    }
+
+    /**PUBLIC********************************************/
+    /* return the bitboards of white pieces, black pieces
+    /* and kings, one bit per square (row*4 + col/2)
+    /* Rev.3: new methods in revision 3
+    /****************************************************/
+    public int getWhitePieces() {
+        return whitePieces;
+    }
+
+    public int getBlackPieces() {
+        return blackPieces;
+    }
+
+    public int getKingPieces() {
+        return kingPieces;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the Zobrist hash of the position, equal for
+    /* equal positions. The piece part is kept up to date
+    /* as pieces change, the turn and double-jumping piece
+    /* are added here so isWhiteTurn can still be set freely
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public long getHash() {
+        long hash = this.pieceHash;
+        if (!this.isWhiteTurn)
+            hash ^= BLACK_TURN_KEY;
+        if (this.jumpOnlyMode && this.jumpingSquare >= 0)
+            hash ^= JUMPING_KEYS[this.jumpingSquare];
+        return hash;
+    }
+
+    /**PUBLIC********************************************/
+    /* sets the weights the computer evaluates positions
+    /* with, and returns them. The moves made so far are
+    /* taken back and made again, so the square scores
+    /* they stored are the new weights' too.
+    /* Rev.3: new methods in revision 3
+    /****************************************************/
+    public void setWeights(EvaluationWeights weights) {
+        int numberOfMoves = this.undoStackSize;
+        long[] moves = Arrays.copyOf(this.undoMoves, numberOfMoves);
+        for (int i = 0; i < numberOfMoves; i++)
+            unmakeMove();
+        this.weights = weights;
+        this.squareValues = weights.squareValues;
+        this.squareScore = scorePieces(whitePieces | blackPieces);
+        for (int i = 0; i < numberOfMoves; i++)
+            makeMove(moves[i]);
+        if (this.engine != null)
+            this.engine.setWeights(weights);
+    }
+
+    public EvaluationWeights getWeights() {
+        return this.weights;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the sum of the weights' squareValues of
+    /* every piece, kept up to date as moves are made, from
+    /* white's point of view
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public int getSquareScore() {
+        return this.squareScore;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the number of steps the passed side's pieces
+    /* could make, jumps not counted, in constant time
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public int countSteps(boolean white) {
+        int movers = white ? whitePieces : blackPieces;
+        int upMovers = white ? movers : movers & kingPieces;
+        int downMovers = white ? movers & kingPieces : movers;
+        int empty = ~(whitePieces | blackPieces);
+        return Integer.bitCount(upRight(upMovers) & empty) + Integer.bitCount(upLeft(upMovers) & empty)
+                + Integer.bitCount(downRight(downMovers) & empty) + Integer.bitCount(downLeft(downMovers) & empty);
+    }
+
+    /**PUBLIC********************************************/
+      
+    /**PUBLIC********************************************/
+    /* loads game from passed text file, returns true  
+    /* if load was successful, false if error.  
+    /* Rev.1: new method in revision 1 
+    /* Rev.1: now loads new boolean attributes as well  
+    /****************************************************/
+    public boolean loadGame(File gameFile) {  
+          
+        //our reader  
+        BufferedReader reader;  
+              
+        //read all pieces from file, and set board up  
+        try {  
+            reader = new BufferedReader(new FileReader(gameFile));  
+            String lineString;  
+            while ((lineString = reader.readLine()) != null) {  
+                      
+                //check that each line is in proper format  
+                if (lineString.matches("[0,1,2,3,4,5,6,7],[0,1,2,3,4,5,6,7],(WHITE|BLACK|NONE),(true|false)")  
+                        || lineString.matches("(ISWHITETURN|VSCOMPUTER|PLAYERISWHITE),(false|true)")) {  
+                          
+                    //split our line by its commas  
+                    String lineStringArray[] = lineString.split(",");  
+      
+                    //if line has all data, set the piece properly  
+                    if (lineStringArray.length == 4) {  
+                        int[] loc = new int[] {Integer.parseInt(lineStringArray[0]),Integer.parseInt(lineStringArray[1])};  
+                              
+                        if (isValidLocation(loc))  
+                            setPiece(loc,lineStringArray[2],Boolean.parseBoolean(lineStringArray[3]));  
+                              
+                        //if file tampered and invalid location, return false  
+                        else {  
+                            reader.close();  
+                            return false;  
+                        }  
+      
+                    }  
+                    //if not on piece line, set boolean appropriately  
+                    else if (lineStringArray.length == 2) {  
+                        if (lineStringArray[0].equals("ISWHITETURN"))  
+                            this.isWhiteTurn = Boolean.parseBoolean(lineStringArray[1]);  
+                        else if (lineStringArray[0].equals("VSCOMPUTER"))  
+                            this.vsComputer = Boolean.parseBoolean(lineStringArray[1]);  
+                        else if (lineStringArray[0].equals("PLAYERISWHITE"))  
+                            this.playerIsWhite = Boolean.parseBoolean(lineStringArray[1]);  
+                    }  
+                }  
+                      
+                //if file has been illegally modified, return false  
+                else {  
+                    reader.close();  
+                    return false;  
+                }  
+            }  
+            //close our reader when done  
+            reader.close();  
+              
+        } catch (FileNotFoundException e1) {  
+            System.out.println("FileNotFound Error");  
+            return false;  
+        } catch (IOException e) {  
+            System.out.println("IOException Error");  
+            return false;  
+        }  
+            
+        //if no errors, return true 
+        return true;  
+    }  
+
+    /**PUBLIC********************************************/
+    /* saves the position to the passed file in the compact
+    /* binary format, returns false if it can't be written
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public boolean saveBinaryGame(File gameFile) {
+        ByteBuffer buffer = ByteBuffer.allocate(POSITION_BYTES);
+        writePosition(buffer);
+        buffer.flip();
+
+        try {
+            FileChannel channel = new FileOutputStream(gameFile).getChannel();
+            try {
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+            } finally {
+                channel.close();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**PUBLIC********************************************/
+    /* loads the position from the passed file in the
+    /* compact binary format, returns false if the file
+    /* can't be read or isn't a valid position
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public boolean loadBinaryGame(File gameFile) {
+        ByteBuffer buffer = ByteBuffer.allocate(POSITION_BYTES);
+
+        try {
+            FileChannel channel = new FileInputStream(gameFile).getChannel();
+            try {
+                if (channel.size() != POSITION_BYTES)
+                    return false;
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0)
+                    ;
+            } finally {
+                channel.close();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        buffer.flip();
+        return readPosition(buffer);
+    }
+
+    /**PUBLIC********************************************/
+    /* puts the position into the passed buffer in the
+    /* compact binary format, POSITION_BYTES bytes
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public void writePosition(ByteBuffer buffer) {
+        int start = buffer.position();
+        int flags = (isWhiteTurn ? 1 : 0) | (vsComputer ? 2 : 0) | (playerIsWhite ? 4 : 0) | (jumpOnlyMode ? 8 : 0);
+        buffer.putInt(BINARY_MAGIC);
+        buffer.put(BINARY_VERSION);
+        buffer.put((byte) flags);
+        buffer.put((byte) (jumpOnlyMode ? jumpingSquare : -1));
+        buffer.putInt(whitePieces);
+        buffer.putInt(blackPieces);
+        buffer.putInt(kingPieces);
+        buffer.putInt(checksum(buffer, start));
+    }
+
+    /**PUBLIC********************************************/
+    /* gets a position in the compact binary format from
+    /* the passed buffer, returns false and leaves the model
+    /* unchanged if it isn't a valid position. The buffer
+    /* moves past the position either way, if it was long
+    /* enough to hold one.
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public boolean readPosition(ByteBuffer buffer) {
+        if (buffer.remaining() < POSITION_BYTES)
+            return false;
+        int start = buffer.position();
+        int magic = buffer.getInt();
+        byte version = buffer.get();
+        int flags = buffer.get();
+        int jumping = buffer.get();
+        int white = buffer.getInt();
+        int black = buffer.getInt();
+        int kings = buffer.getInt();
+        int storedChecksum = buffer.getInt();
+
+        //check the file is ours, undamaged, and holds a position that could happen
+        if (magic != BINARY_MAGIC || version != BINARY_VERSION || storedChecksum != checksum(buffer, start))
+            return false;
+        if (!isPossible(white, black, kings))
+            return false;
+        boolean isWhite = (flags & 1) != 0;
+        boolean jumpOnly = (flags & 8) != 0;
+        if (jumpOnly && (jumping < 0 || jumping > 31 || ((isWhite ? white : black) & (1 << jumping)) == 0))
+            return false;
+
+        setBoard(white, black, kings);
+        this.isWhiteTurn = isWhite;
+        this.vsComputer = (flags & 2) != 0;
+        this.playerIsWhite = (flags & 4) != 0;
+        this.jumpOnlyMode = jumpOnly;
+        this.jumpingSquare = jumpOnly ? jumping : -1;
+        return true;
+    }
+
+    /**PUBLIC********************************************/
+    /* sets the board to the passed bitboards and turn,
+    /* returns false and leaves the model unchanged if they
+    /* aren't a possible position
+    /* Rev.3: new method in revision 3
+    /****************************************************/
+    public boolean setPosition(int white, int black, int kings, boolean whiteToMove) {
+        if (!isPossible(white, black, kings))
+            return false;
+        setBoard(white, black, kings);
+        this.isWhiteTurn = whiteToMove;
+        this.jumpOnlyMode = false;
+        this.jumpingSquare = -1;
+        return true;
+    }
+
+    /**PUBLIC*******************************************/
+    /* return true if player has another piece that can
+    /* jump, false if passed location piece can jump or
+    /* if no other pieces can jump.
+    /* Rev.2: new method in revision 2
+    /* Rev.3: jumping pieces found with one bitboard pass
+    /***************************************************/
+    public boolean otherPieceCanJump(int[] loc) {
+
+        //all pieces of the current player that can jump
+        int jumpingPieces = getJumpingPieces(isWhiteTurn);
+
+        //if passed piece has a jump, return false
+        if (isValidLocation(loc) && (jumpingPieces & (1 << toSquare(loc))) != 0)
+            return false;
+
+        //return true if any other piece can jump
+        return jumpingPieces != 0;
+    }
+
+    /**PUBLIC*******************************************/
+      
+    /**PUBLIC********************************************/
+    /* return true if location is a red square (i.e. valid)  
+    /* Rev.1: new method in revision 1    
+    /* Rev.2: no changes made in revision 2 
+    /* Rev.3: negative rows and columns are now invalid
+    /***************************************************/
+    public boolean isValidLocation(int[] loc) {    
+                  
+        //check if location is valid    
+        if (loc.length == 2 && loc[0] >= 0 && loc[1] >= 0 && loc[0] < 8 && loc[1] < 8 && loc[0] % 2 != loc[1] % 2)    
+            return true;    
+                
+        //if invalid, return false  
+        return false;    
+    }
+
+    /**PUBLIC********************************************/
+    /* converts a valid {row,col} location to its square
+    /* index (row*4 + col/2), as used in packed moves, and
+    /* back again
+    /* Rev.3: new methods in revision 3
+    /****************************************************/
+    public static int toSquare(int[] loc) {
+        return loc[0] * 4 + loc[1] / 2;
+    }
+
+    public static int[] toLocation(int square) {
+        int row = square >> 2;
+        return new int[] {row, (square & 3) * 2 + (row % 2 == 0 ? 1 : 0)};
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the engine's best move in the passed position,
+    /* recording the search as a ComputerMoveEvent, whose
+    /* fields are only filled in if it is recorded
+    /* Rev.3: new method in revision 3
+    /*===================================================*/
+    private long searchComputerMove(CheckersModel position) {
+        SearchEngine engine = getEngine();
+        ComputerMoveEvent event = new ComputerMoveEvent();
+        event.begin();
+        long move = engine.findBestMove(position);
+        event.end();
+        if (event.shouldCommit()) {
+            event.depth = engine.getCompletedDepth();
+            event.nodes = engine.getNodes();
+            event.threads = engine.getThreads();
+            event.move = move == SearchEngine.NO_MOVE ? "none" : PdnWriter.moveToString(position, move);
+            event.commit();
+        }
+        return move;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the computer's search engine, creating it
+    /* with the current settings the first time. Models that
+    /* never play the computer don't pay for its table.
+    /* Rev.3: new method in revision 3
+    /*===================================================*/
+    private SearchEngine getEngine() {
+        if (this.engine == null) {
+            this.engine = new SearchEngine(this.searchDepth);
+            this.engine.setTimeLimit(this.searchMillis);
+            this.engine.setThreads(this.searchThreads);
+            this.engine.setWeights(this.weights);
+        }
+        return this.engine;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* replaces the pieces on the board with the passed
+    /* bitboards, nothing selected and no moves to take back
+    /* Rev.3: new method in revision 3
+    /*===================================================*/
+    private void setBoard(int white, int black, int kings) {
+        whitePieces = white;
+        blackPieces = black;
+        kingPieces = kings;
+        selectedSquares = 0;
+        pieceHash = hashPieces(white | black);
+        squareScore = scorePieces(white | black);
+        pieceCounts = new int[] {Integer.bitCount(white & ~kings), Integer.bitCount(white & kings),
+                Integer.bitCount(black & ~kings), Integer.bitCount(black & kings)};
+        undoStackSize = 0;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns true if the bitboards could be a position:
+    /* no square of both colours, kings only on pieces, and
+    /* at most 12 pieces of each colour
+    /* Rev.3: new method in revision 3
+    /*===================================================*/
+    private static boolean isPossible(int white, int black, int kings) {
+        return (white & black) == 0 && (kings & ~(white | black)) == 0
+                && Integer.bitCount(white) <= 12 && Integer.bitCount(black) <= 12;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the CRC32 of the binary position written
+    /* from start up to the buffer's position
+    /* Rev.3: new method in revision 3
+    /*===================================================*/
+    private static int checksum(ByteBuffer buffer, int start) {
+        byte[] bytes = new byte[POSITION_BYTES - 4];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = buffer.get(start + i);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return (int) crc.getValue();
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the bitboard of all pieces of the passed
+    /* colour that have a jump available
+    /* Rev.3: new method in revision 3
+    /*===================================================*/
+    private int getJumpingPieces(boolean white) {
+        int empty = ~(whitePieces | blackPieces);
+        int opponent = white ? blackPieces : whitePieces;
+
+        //white men move up the board and black men move down, kings move both ways
+        int upMovers = white ? whitePieces : blackPieces & kingPieces;
+        int downMovers = white ? whitePieces & kingPieces : blackPieces;
+
+        //walk back from each empty square over an opponent's piece to find the jumping piece
+        return (upMovers & (downLeft(downLeft(empty) & opponent) | downRight(downRight(empty) & opponent)))
+                | (downMovers & (upLeft(upLeft(empty) & opponent) | upRight(upRight(empty) & opponent)));
+    }
+
+    /*==PRIVATE==========================================*/
+    /* writes the moves of the piece on the passed square
+    /* into moveBuffer, in the order forward right, forward
+    /* left, then backward for kings. Returns how many moves
+    /* were written; only jumps if the piece can jump.
+    /* Rev.3: new method in revision 3
+    /*===================================================*/
+    private int generatePieceMoves(int square, long[] moveBuffer) {
+        int piece = 1 << square;
+        boolean isWhite = (whitePieces & piece) != 0;
+        if (!isWhite && (blackPieces & piece) == 0)
+            return 0;
+
+        int empty = ~(whitePieces | blackPieces);
+        int opponent = isWhite ? blackPieces : whitePieces;
+        boolean isKinged = (kingPieces & piece) != 0;
+        int kingRow = isKinged ? 0 : (isWhite ? WHITE_KING_ROW : BLACK_KING_ROW);
+
+        //kings may also move backwards
+        int[] directions = isWhite ? WHITE_DIRECTIONS : BLACK_DIRECTIONS;
+        int numberOfDirections = isKinged ? 4 : 2;
+
+        //look for jumps, an opponent's piece with an empty square behind it
+        int numberOfMoves = 0;
+        for (int i = 0; i < numberOfDirections; i++) {
+            int captured = shift(piece, directions[i]) & opponent;
+            int to = shift(captured, directions[i]) & empty;
+            if (to != 0)
+                moveBuffer[numberOfMoves++] = Move.jump(square, Integer.numberOfTrailingZeros(to), captured, (to & kingRow) != 0);
+        }
+
+        //one can only step to an empty square if there are no jumps and not in jump-only mode
+        if (numberOfMoves > 0 || this.jumpOnlyMode)
+            return numberOfMoves;
+        for (int i = 0; i < numberOfDirections; i++) {
+            int to = shift(piece, directions[i]) & empty;
+            if (to != 0)
+                moveBuffer[numberOfMoves++] = Move.step(square, Integer.numberOfTrailingZeros(to), (to & kingRow) != 0);
+        }
+        return numberOfMoves;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* adds every jump path of the piece that started on
+    /* from and has reached square, having taken the pieces
+    /* in captured, to moveBuffer starting at numberOfMoves.
+    /* A path ends where the piece can't jump again, or
+    /* where a man is kinged. Taken pieces stay on the board
+    /* until the move is made, so can't be jumped twice.
+    /* Returns the new number of moves, at most the size of
+    /* moveBuffer.
+    /* Rev.3: new method in revision 3
+    /*===================================================*/
+    private int addJumpPaths(int from, int square, int captured, long[] moveBuffer, int numberOfMoves) {
+        boolean isWhite = (whitePieces & (1 << from)) != 0;
+        boolean isKinged = (kingPieces & (1 << from)) != 0;
+        int opponent = (isWhite ? blackPieces : whitePieces) & ~captured;
+        int empty = ~(whitePieces | blackPieces) | (1 << from);
+        int kingRow = isKinged ? 0 : (isWhite ? WHITE_KING_ROW : BLACK_KING_ROW);
+
+        //kings may also jump backwards
+        int[] directions = isWhite ? WHITE_DIRECTIONS : BLACK_DIRECTIONS;
+        int numberOfDirections = isKinged ? 4 : 2;
+
+        //follow each jump from here, an opponent's piece not yet taken with an empty square behind it
+        boolean canJump = false;
+        for (int i = 0; i < numberOfDirections && numberOfMoves < moveBuffer.length; i++) {
+            int over = shift(1 << square, directions[i]) & opponent;
+            int to = shift(over, directions[i]) & empty;
+            if (to == 0)
+                continue;
+            canJump = true;
+            if ((to & kingRow) != 0)
+                moveBuffer[numberOfMoves++] = Move.jump(from, Integer.numberOfTrailingZeros(to), captured | over, true);
+            else
+                numberOfMoves = addJumpPaths(from, Integer.numberOfTrailingZeros(to), captured | over, moveBuffer, numberOfMoves);
+        }
+
+        //the path ends here if the piece can't jump again
+        if (!canJump && captured != 0 && numberOfMoves < moveBuffer.length)
+            moveBuffer[numberOfMoves++] = Move.jump(from, square, captured, false);
+        return numberOfMoves;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* adds every step the passed pieces can make in one
+    /* direction to moveBuffer, starting at numberOfMoves,
+    /* kinging men that reach kingRow. Returns the new
+    /* number of moves.
+    /* Rev.3: new method in revision 3
+    /*===================================================*/
+    private int addSteps(int movers, int direction, int empty, int kingRow, long[] moveBuffer, int numberOfMoves) {
+        int targets = shift(movers, direction) & empty;
+        int back = 3 - direction;
+
+        //walk back from each empty square to the piece moving
+        while (targets != 0) {
+            int to = targets & -targets;
+            targets &= targets - 1;
+            int from = shift(to, back);
+            boolean promotion = (kingPieces & from) == 0 && (to & kingRow) != 0;
+            moveBuffer[numberOfMoves++] = Move.step(Integer.numberOfTrailingZeros(from), Integer.numberOfTrailingZeros(to), promotion);
+        }
+        return numberOfMoves;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* places a piece on the passed empty square
+    /* Rev.3: new method in revision 3
+    /*===================================================*/
+    private void addPiece(int square, boolean isWhite, boolean isKinged) {
+        if (isWhite)
+            whitePieces |= 1 << square;
+        else
+            blackPieces |= 1 << square;
+        if (isKinged)
+            kingPieces |= 1 << square;
+        this.pieceHash ^= PIECE_KEYS[pieceType(isWhite, isKinged)][square];
+        this.squareScore += this.squareValues[pieceType(isWhite, isKinged)][square];
+        pieceCounts[pieceType(isWhite, isKinged)]++;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the XOR of the keys of the pieces on the
+    /* passed squares, which must all hold pieces
+    /* Rev.3: new method in revision 3
+    /*===================================================*/
+    private long hashPieces(int pieces) {
+        long hash = 0;
+        while (pieces != 0) {
+            int square = Integer.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            hash ^= PIECE_KEYS[pieceType((whitePieces & (1 << square)) != 0, (kingPieces & (1 << square)) != 0)][square];
+        }
+        return hash;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the sum of the weights' squareValues of the
+    /* pieces on the passed squares, which must all hold
+    /* pieces
+    /* Rev.3: new method in revision 3
+    /*===================================================*/
+    private int scorePieces(int pieces) {
+        int score = 0;
+        while (pieces != 0) {
+            int square = Integer.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            score += this.squareValues[pieceType((whitePieces & (1 << square)) != 0, (kingPieces & (1 << square)) != 0)][square];
+        }
+        return score;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the index into PIECE_KEYS of a piece
+    /* Rev.3: new method in revision 3
+    /*===================================================*/
+    private static int pieceType(boolean isWhite, boolean isKinged) {
+        return (isWhite ? 0 : 2) + (isKinged ? 1 : 0);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* removes any piece or selection from the passed squares
+    /* Rev.3: new method in revision 3
+    /*===================================================*/
+    private void clearSquares(int squares) {
+
+        //take the cleared pieces out of the hash and the counts
+        this.pieceHash ^= hashPieces(squares & (whitePieces | blackPieces));
+        this.squareScore -= scorePieces(squares & (whitePieces | blackPieces));
+        pieceCounts[pieceType(true, false)] -= Integer.bitCount(squares & whitePieces & ~kingPieces);
+        pieceCounts[pieceType(true, true)] -= Integer.bitCount(squares & whitePieces & kingPieces);
+        pieceCounts[pieceType(false, false)] -= Integer.bitCount(squares & blackPieces & ~kingPieces);
+        pieceCounts[pieceType(false, true)] -= Integer.bitCount(squares & blackPieces & kingPieces);
+
+        whitePieces &= ~squares;
+        blackPieces &= ~squares;
+        kingPieces &= ~squares;
+        selectedSquares &= ~squares;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* shifts every bit of the board one square in the
+    /* passed direction, bits leaving the board are dropped
+    /* Rev.3: new method in revision 3
+    /*===================================================*/
+    private static int shift(int board, int direction) {
+        switch (direction) {
+            case UP_RIGHT: return upRight(board);
+            case UP_LEFT: return upLeft(board);
+            case DOWN_RIGHT: return downRight(board);
+            default: return downLeft(board);
+        }
+    }
+
+    /*==PRIVATE==========================================*/
+    /* diagonal shifts, moving up the board lowers the
+    /* square index and moving down raises it
+    /* Rev.3: new methods in revision 3
+    /*===================================================*/
+    private static int upRight(int board) {
+        return ((board & EVEN_ROWS_NOT_RIGHT_EDGE) >>> 3) | ((board & ODD_ROWS) >>> 4);
+    }
+
+    private static int upLeft(int board) {
+        return ((board & EVEN_ROWS) >>> 4) | ((board & ODD_ROWS_NOT_LEFT_EDGE) >>> 5);
+    }
+
+    private static int downRight(int board) {
+        return ((board & EVEN_ROWS_NOT_RIGHT_EDGE) << 5) | ((board & ODD_ROWS) << 4);
+    }
+
+    private static int downLeft(int board) {
+        return ((board & EVEN_ROWS) << 4) | ((board & ODD_ROWS_NOT_LEFT_EDGE) << 3);
+    }
+}
@@ -0,0 +1,551 @@
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+public class CheckersServer {
+
+    /* This class hosts many checkers games at once without the GUI, for clients connecting over TCP. Each
+     * game is a CheckersModel kept by the server's SessionStore under a number, so a game outlives the
+     * connection that created it and any connection may play it. Games idle for a while, or used least
+     * recently when too many are in memory, are stored on disk by the SessionStore until they are used
+     * again; the selector's thread asks it to store idle games every EVICT_MILLIS.
+     *
+     * One thread serves every connection through a non-blocking NIO Selector, so idle connections and
+     * games cost memory but no threads. Commands are lines of text and each gets a one line reply, in the
+     * order the commands were sent, so a client may send many commands before reading the replies:
+     *      NEW                 starts a game from the starting position, replies OK game
+     *      MOVE game move      makes a PDN move (11-15, 15x24x31) for the player to move, replies
+     *                          OK fen result
+     *      AI game             makes the computer's move for the player to move, replies OK move fen result
+     *      POSITION game       replies OK fen result
+     *      END game            forgets the game, replies OK
+     *      QUIT                closes the connection
+     * Squares, moves and positions are written as in PdnWriter, and result is the game's PDN result, *
+     * while it isn't over. A command that fails replies ERR and what was wrong.
+     *
+     * Moves and positions take microseconds, so they are made on the selector's thread. The computer's
+     * moves are searched on a pool of worker threads, each with a SearchEngine of its own, on a copy of the
+     * game; the connection reads no more commands until the search is done, which keeps its replies in
+     * order. When the search is done its move is handed back to the selector's thread, and made if the
+     * game hasn't changed meanwhile. A connection that doesn't read its replies isn't read from either,
+     * until they are sent. The time each command takes on the selector's thread is added to Metrics.COMMAND,
+     * and the computer's searches are counted by their SearchEngines.
+     *
+     * One connection's failure never stops the server. A command that throws an unexpected exception, for
+     * example reading a damaged game back from the SessionStore, replies ERR and closes only that connection.
+     * If accepting a connection fails, for example when the process runs out of file descriptors, the
+     * failure is reported and the server stops accepting for EVICT_MILLIS, serving the connections it has,
+     * rather than spinning on the waiting connection.
+     *
+     * The public interface consists of:
+     *      main(String[]) starts a server, usage: java CheckersServer [-port n] [-threads n] [-millis n]
+     *          [-depth n] [-table megabytes] [-active n] [-idle seconds] [-spill file] [-metrics seconds],
+     *          registering the Metrics MBeans and printing their report every -metrics seconds if given
+     *      Constructor taking the port to listen on, 0 for any free port, the number of worker threads,
+     *          and the SessionStore the games are kept in
+     *      setTimeLimit(milliseconds:long), setDepth(depth:int) and setTableMegabytes(megabytes:int) set up
+     *          the computer's search, before run() is called
+     *      getPort() returns the port listened on
+     *      run() serves connections until close() is called
+     *      close() stops the server
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    public static final int DEFAULT_PORT = 7474;
+    private static final int MAX_LINE_LENGTH = 1024; //a longer command closes the connection
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final long EVICT_MILLIS = 1000; //time between checks for idle games
+    private static final int FIRST_PLAYER_START = 0xFFF00000; //model squares of WHITE at the start
+    private static final int SECOND_PLAYER_START = 0x00000FFF; //model squares of BLACK at the start
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE); //shared by every connection
+    private volatile boolean running = true;
+
+    private final SessionStore games; //only used on the selector's thread
+    private long lastEvict = System.currentTimeMillis(); //time idle games were last stored
+    private boolean acceptPaused = false; //true after accepting failed, until the next check for idle games
+
+    //the computer's search, on the worker threads
+    private final ExecutorService workers;
+    private final ConcurrentLinkedQueue<Runnable> finished = new ConcurrentLinkedQueue<Runnable>(); //run on the selector's thread
+    private volatile long timeLimit = 100;
+    private volatile int depth = CheckersModel.DEFAULT_SEARCH_DEPTH;
+    private volatile int tableMegabytes = SearchEngine.DEFAULT_TABLE_MEGABYTES;
+    private final ThreadLocal<SearchEngine> engines = new ThreadLocal<SearchEngine>() {
+        protected SearchEngine initialValue() {
+            return new SearchEngine(depth, tableMegabytes);
+        }
+    };
+
+    //what the server knows about each connection
+    private static class Connection {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final StringBuilder input = new StringBuilder(); //text read and not yet taken as commands
+        ArrayDeque<ByteBuffer> output = null; //replies not yet sent, null if none
+        boolean searching = false; //true while the computer's move is searched for this connection
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+    }
+
+    /**PUBLIC********************************************/
+    /* starts a server with the passed options and serves
+    /* until it is killed
+    /****************************************************/
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long millis = 100;
+        int depth = CheckersModel.DEFAULT_SEARCH_DEPTH;
+        int table = SearchEngine.DEFAULT_TABLE_MEGABYTES;
+        int active = 10000;
+        long idleSeconds = 300;
+        String spillName = "sessions.ckar";
+        int metricsSeconds = 0;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-port"))
+                port = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-threads"))
+                threads = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-millis"))
+                millis = Long.parseLong(args[++i]);
+            else if (args[i].equals("-depth"))
+                depth = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-table"))
+                table = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-active"))
+                active = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-idle"))
+                idleSeconds = Long.parseLong(args[++i]);
+            else if (args[i].equals("-spill"))
+                spillName = args[++i];
+            else if (args[i].equals("-metrics"))
+                metricsSeconds = Integer.parseInt(args[++i]);
+            else
+                throw new IllegalArgumentException("unknown option " + args[i]);
+        }
+
+        CheckersServer server = new CheckersServer(port, threads, new SessionStore(new File(spillName), active, idleSeconds * 1000));
+        server.setTimeLimit(millis);
+        server.setDepth(depth);
+        server.setTableMegabytes(table);
+        Metrics.start(metricsSeconds);
+        System.out.println("listening on port " + server.getPort());
+        server.run();
+    }
+
+    /**PUBLIC********************************************/
+    /* constructor, listens on the passed port, or any
+    /* free port if 0, searches the computer's moves on the
+    /* passed number of threads, and keeps the games in the
+    /* passed store
+    /****************************************************/
+    public CheckersServer(int port, int threads, SessionStore games) throws IOException {
+        this.games = games;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.configureBlocking(false);
+        this.serverChannel.bind(new InetSocketAddress(port), 1024);
+        this.serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+        this.workers = Executors.newFixedThreadPool(Math.max(1, threads), new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "CheckersServer worker");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**PUBLIC********************************************/
+    /* sets the longest the computer searches a move
+    /****************************************************/
+    public void setTimeLimit(long milliseconds) {
+        this.timeLimit = milliseconds;
+    }
+
+    /**PUBLIC********************************************/
+    /* sets the furthest ahead the computer searches
+    /****************************************************/
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    /**PUBLIC********************************************/
+    /* sets the memory of each worker's transposition table
+    /****************************************************/
+    public void setTableMegabytes(int megabytes) {
+        this.tableMegabytes = megabytes;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the port the server listens on
+    /****************************************************/
+    public int getPort() {
+        return this.serverChannel.socket().getLocalPort();
+    }
+
+    /**PUBLIC********************************************/
+    /* serves connections until close() is called
+    /****************************************************/
+    public void run() throws IOException {
+        try {
+            while (this.running) {
+                this.selector.select(EVICT_MILLIS);
+
+                //store the games that have been idle too long
+                if (System.currentTimeMillis() - this.lastEvict >= EVICT_MILLIS) {
+                    try {
+                        this.games.evictIdle();
+                    } catch (IOException e) {
+                        //the games stay in memory, and are tried again next time
+                        System.err.println("storing idle games failed: " + e);
+                    }
+                    this.lastEvict = System.currentTimeMillis();
+
+                    //accept connections again after a failure
+                    if (this.acceptPaused) {
+                        this.acceptPaused = false;
+                        this.serverChannel.keyFor(this.selector).interestOps(SelectionKey.OP_ACCEPT);
+                    }
+                }
+
+                //the computer's moves found since the last wake up
+                Runnable task;
+                while ((task = this.finished.poll()) != null)
+                    task.run();
+
+                Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid())
+                        continue;
+                    if (key.isAcceptable()) {
+                        try {
+                            accept();
+                        } catch (IOException e) {
+                            //out of file descriptors, most likely, so wait for some to be freed
+                            System.err.println("accepting a connection failed: " + e);
+                            this.acceptPaused = true;
+                            key.interestOps(0);
+                        }
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable())
+                            read(connection);
+                        if (key.isValid() && key.isWritable())
+                            write(connection);
+                    } catch (IOException e) {
+                        closeConnection(connection);
+                    }
+                }
+            }
+        } finally {
+            for (SelectionKey key : this.selector.keys())
+                key.channel().close();
+            this.selector.close();
+            this.workers.shutdownNow();
+        }
+    }
+
+    /**PUBLIC********************************************/
+    /* stops the server, run() returns soon after
+    /****************************************************/
+    public void close() {
+        this.running = false;
+        this.selector.wakeup();
+    }
+
+    /*==PRIVATE==========================================*/
+    /* accepts waiting connections
+    /*===================================================*/
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = this.serverChannel.accept()) != null) {
+            try {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                SelectionKey key = channel.register(this.selector, SelectionKey.OP_READ);
+                key.attach(new Connection(channel, key));
+            } catch (IOException e) {
+                //only this connection is lost
+                channel.close();
+            }
+        }
+    }
+
+    /*==PRIVATE==========================================*/
+    /* reads what the connection has sent, and carries out
+    /* every whole command
+    /*===================================================*/
+    private void read(Connection connection) throws IOException {
+        this.readBuffer.clear();
+        int read = connection.channel.read(this.readBuffer);
+        if (read < 0) {
+            closeConnection(connection);
+            return;
+        }
+        this.readBuffer.flip();
+        while (this.readBuffer.hasRemaining())
+            connection.input.append((char) (this.readBuffer.get() & 0xFF));
+        runCommands(connection);
+        if (connection.input.length() > MAX_LINE_LENGTH && connection.input.indexOf("\n") < 0)
+            closeConnection(connection);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* carries out the connection's whole commands, until
+    /* one must wait for the computer's search
+    /*===================================================*/
+    private void runCommands(Connection connection) {
+        int start = 0;
+        while (!connection.searching && connection.channel.isOpen()) {
+            int end = connection.input.indexOf("\n", start);
+            if (end < 0)
+                break;
+            String line = connection.input.substring(start, end).trim();
+            start = end + 1;
+            if (line.length() == 0)
+                continue;
+            long commandStart = System.nanoTime();
+            try {
+                runCommand(connection, line);
+            } catch (IOException e) {
+                send(connection, "ERR stored game unavailable: " + e.getMessage());
+            } catch (RuntimeException e) {
+                failConnection(connection, line, e);
+            }
+            Metrics.COMMAND.record(System.nanoTime() - commandStart);
+        }
+        connection.input.delete(0, start);
+        updateInterest(connection);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* carries out one command and replies to it, or starts
+    /* the computer's search
+    /*===================================================*/
+    private void runCommand(Connection connection, String line) throws IOException {
+        String[] words = line.split("\\s+");
+        String command = words[0].toUpperCase();
+        if (command.equals("QUIT")) {
+            closeConnection(connection);
+            return;
+        }
+        if (command.equals("NEW")) {
+            CheckersModel model = new CheckersModel();
+            model.setPosition(FIRST_PLAYER_START, SECOND_PLAYER_START, 0, true);
+            send(connection, "OK " + this.games.add(model));
+            return;
+        }
+        if (!command.equals("MOVE") && !command.equals("AI") && !command.equals("POSITION") && !command.equals("END")) {
+            send(connection, "ERR unknown command " + words[0]);
+            return;
+        }
+
+        //the other commands name a game
+        CheckersModel model = null;
+        long game = 0;
+        if (words.length > 1) {
+            try {
+                game = Long.parseLong(words[1]);
+                model = this.games.get(game);
+            } catch (NumberFormatException e) {
+                //model stays null
+            }
+        }
+        if (model == null) {
+            send(connection, "ERR no game " + (words.length > 1 ? words[1] : ""));
+            return;
+        }
+
+        if (command.equals("POSITION"))
+            send(connection, "OK " + describe(model));
+        else if (command.equals("END")) {
+            this.games.remove(game);
+            send(connection, "OK");
+        }
+        else if (command.equals("MOVE")) {
+            long move = words.length > 2 ? PdnReader.findMove(model, words[2]) : SearchEngine.NO_MOVE;
+            if (move == SearchEngine.NO_MOVE)
+                send(connection, "ERR illegal move " + (words.length > 2 ? words[2] : ""));
+            else {
+                model.makeMove(move);
+                send(connection, "OK " + describe(model));
+            }
+        }
+        else if (model.isGameOver())
+            send(connection, "ERR game over " + describe(model));
+        else
+            startSearch(connection, game, model);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* searches the computer's move in a copy of the game
+    /* on a worker thread, and makes it on the selector's
+    /* thread if the game is unchanged by then
+    /*===================================================*/
+    private void startSearch(final Connection connection, final long game, CheckersModel model) {
+        final CheckersModel position = new CheckersModel(model);
+        final long hash = model.getHash();
+        connection.searching = true;
+        this.workers.execute(new Runnable() {
+            public void run() {
+                long move = SearchEngine.NO_MOVE;
+                try {
+                    SearchEngine engine = engines.get();
+                    engine.setDepth(depth);
+                    engine.setTimeLimit(timeLimit);
+                    move = engine.findBestMove(position);
+                } finally {
+                    //hand the move back even if the search failed, so the connection carries on
+                    final long found = move;
+                    finished.add(new Runnable() {
+                        public void run() {
+                            searchFinished(connection, game, hash, found);
+                        }
+                    });
+                    selector.wakeup();
+                }
+            }
+        });
+    }
+
+    /*==PRIVATE==========================================*/
+    /* makes the computer's move found in the position with
+    /* the passed hash, replies, and carries on with the
+    /* connection's commands
+    /*===================================================*/
+    private void searchFinished(Connection connection, long game, long hash, long move) {
+        connection.searching = false;
+        if (!connection.channel.isOpen())
+            return;
+        try {
+            CheckersModel model = this.games.get(game);
+            if (model == null)
+                send(connection, "ERR no game " + game);
+            else if (model.getHash() != hash)
+                send(connection, "ERR game changed during the search");
+            else if (move == SearchEngine.NO_MOVE)
+                send(connection, "ERR search failed");
+            else {
+                String text = PdnWriter.moveToString(model, move);
+                model.makeMove(move);
+                send(connection, "OK " + text + " " + describe(model));
+            }
+        } catch (IOException e) {
+            send(connection, "ERR stored game unavailable: " + e.getMessage());
+        } catch (RuntimeException e) {
+            failConnection(connection, "AI " + game, e);
+        }
+        runCommands(connection);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the game's position as FEN and its result
+    /*===================================================*/
+    private static String describe(CheckersModel model) {
+        int result = GameArchive.UNFINISHED;
+        if (model.isGameOver())
+            result = model.winner().equals("WHITE") ? GameArchive.WHITE_WINS : GameArchive.BLACK_WINS;
+        return PdnWriter.toFen(model) + " " + PdnWriter.resultToString(result);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* sends a line to the connection, or queues it if
+    /* earlier lines are still waiting to be sent
+    /*===================================================*/
+    private void send(Connection connection, String line) {
+        ByteBuffer bytes = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.US_ASCII));
+        try {
+            if (connection.output == null) {
+                connection.channel.write(bytes);
+                if (!bytes.hasRemaining())
+                    return;
+                connection.output = new ArrayDeque<ByteBuffer>();
+            }
+            connection.output.add(bytes);
+            updateInterest(connection);
+        } catch (IOException e) {
+            closeConnection(connection);
+        }
+    }
+
+    /*==PRIVATE==========================================*/
+    /* sends the connection's queued lines, as far as the
+    /* socket takes them
+    /*===================================================*/
+    private void write(Connection connection) throws IOException {
+        while (connection.output != null) {
+            ByteBuffer bytes = connection.output.peek();
+            connection.channel.write(bytes);
+            if (bytes.hasRemaining())
+                return;
+            connection.output.poll();
+            if (connection.output.isEmpty())
+                connection.output = null;
+        }
+        runCommands(connection);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* reads from the connection only when it isn't waiting
+    /* for a search or for its replies to be sent, and
+    /* waits to write only when replies are queued
+    /*===================================================*/
+    private void updateInterest(Connection connection) {
+        if (!connection.key.isValid())
+            return;
+        int ops = 0;
+        if (connection.output != null)
+            ops |= SelectionKey.OP_WRITE;
+        else if (!connection.searching)
+            ops |= SelectionKey.OP_READ;
+        connection.key.interestOps(ops);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* reports a command that failed unexpectedly, replies
+    /* ERR and closes the connection, so the server and the
+    /* other connections carry on
+    /*===================================================*/
+    private void failConnection(Connection connection, String line, RuntimeException e) {
+        System.err.println("command " + line + " failed: " + e);
+        send(connection, "ERR internal error");
+        closeConnection(connection);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* closes the connection, its games are kept
+    /*===================================================*/
+    private void closeConnection(Connection connection) {
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            //nothing more can be done with it
+        }
+    }
+}
@@ -0,0 +1,43 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("checkers.ComputerMove")
+@Label("Computer Move")
+@Category({"Checkers", "Search"})
+@Description("The computer choosing its move, from CheckersModel.computerMove or findComputerMove")
+public class ComputerMoveEvent extends Event {
+
+    /* This class is the Java Flight Recorder event of one computer move: the time the search took, how deep
+     * it got, how many positions it visited on all its threads, and the move chosen in PDN. The search's
+     * iterations are SearchIterationEvents inside it.
+     *
+     * Like every event here it is made, begun and committed around the work, and its fields are only filled
+     * in if shouldCommit() says it is recorded. When no recording is running, or the event is disabled, the
+     * JIT removes the event altogether, so it costs nothing. To record, start the program with
+     *      java -XX:StartFlightRecording=filename=checkers.jfr CheckersViewController
+     * or start a recording in a running program with jcmd or JDK Mission Control, which shows the events
+     * under Checkers.
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    @Label("Depth")
+    @Description("Deepest iteration the search completed")
+    int depth;
+
+    @Label("Nodes")
+    @Description("Positions visited, on every search thread")
+    long nodes;
+
+    @Label("Threads")
+    int threads;
+
+    @Label("Move")
+    @Description("Move chosen, in PDN, or none")
+    String move;
+}
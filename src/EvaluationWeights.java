@@ -0,0 +1,326 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Properties;
+
+public class EvaluationWeights {
+
+    /* This class holds the weights the SearchEngine scores positions with, so they can be changed, or
+     * tuned, without recompiling. Weights are whole numbers, a man being worth about 100.
+     *
+     * The evaluation is the sum of these terms, from white's point of view, for every piece:
+     *      man, king               material, what a man or a king is worth anywhere
+     *      backRank                a man still guarding its own back row against the opponent's kings
+     *      tempo                   each row a man has advanced
+     *      centre                  a man on the 4 by 4 centre of the board
+     *      kingCentre, kingEdge    a king on the centre, or on the left or right edge
+     *      manSquare, kingSquare   a further weight for each of the 32 squares, as seen by white, 0 by default
+     * less the same for black's pieces on the mirrored squares, plus
+     *      mobility                each step the side can make, less each step the other side can make
+     * Every term but mobility depends only on a piece and its square, so they are added up into one table
+     * per piece type, squareValues, and CheckersModel keeps the sum of its pieces' table values up to date
+     * as moves are made and unmade. The SearchEngine then scores a position in constant time: the model's
+     * sum, and the mobility term counted with a few bitboard shifts.
+     *
+     * The weights are also a vector of NUMBER_OF_PARAMETERS numbers, the 8 terms then the two 32 square
+     * tables, for tuning. Since the score is a sum of weights times counts, getFeatures(model, features)
+     * returns the counts, and the score is their dot product with getParameters(). Only mobility and the
+     * square tables are independent: every other term is a sum of table entries (man is every manSquare
+     * entry, centre the centre's entries, and so on), so a tuner should fit the independent weights only,
+     * see isIndependent(index).
+     *
+     * Weight files are Properties files, a term per line and a table as 32 numbers separated by commas:
+     *      man=100
+     *      manSquare=0,0,0,...
+     * Terms missing from the file keep their default. getDefault() reads the file named by the system
+     * property checkers.weights, or DEFAULT_FILE in the working folder, if there is one.
+     *
+     * The public interface consists of:
+     *      Constructor of the default weights, the hand-picked weights the engine has always used
+     *      Constructor taking a vector of NUMBER_OF_PARAMETERS weights
+     *      load(file:File) returns the weights read from a weight file
+     *      save(file:File) writes the weights to a weight file
+     *      getDefault() returns the weights models and engines use unless told otherwise
+     *      getParameters() returns a copy of the weight vector, getParameterName(index:int) a weight's name
+     *      isIndependent(index:int) returns false for the weights that are sums of table entries
+     *      getFeatures(model:CheckersModel, features:int[]) puts into features how many times each weight
+     *          counts in the position, from white's point of view
+     *      scorePieces(white:int, black:int, kings:int) returns the sum of the pieces' table values
+     *      getMobility() returns the mobility weight
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    public static final String DEFAULT_FILE = "weights.properties";
+
+    //the terms, in the order they come in the weight vector, then the square tables
+    private static final String[] TERMS = {"man", "king", "backRank", "tempo", "centre", "kingCentre", "kingEdge", "mobility"};
+    private static final int[] DEFAULT_TERMS = {100, 150, 10, 3, 5, 10, -5, 0};
+    private static final int MAN = 0;
+    private static final int KING = 1;
+    private static final int BACK_RANK = 2;
+    private static final int TEMPO = 3;
+    private static final int CENTRE = 4;
+    private static final int KING_CENTRE = 5;
+    private static final int KING_EDGE = 6;
+    private static final int MOBILITY = 7;
+    private static final int MAN_SQUARE = TERMS.length; //index of the man table's first square
+    private static final int KING_SQUARE = MAN_SQUARE + 32; //index of the king table's first square
+    public static final int NUMBER_OF_PARAMETERS = KING_SQUARE + 32;
+
+    private static EvaluationWeights defaultWeights = null; //read on the first call of getDefault
+
+    private final int[] parameters;
+
+    //value of a piece on each square from white's point of view, indexed by the piece type as in CheckersModel:
+    //white man, white king, black man, black king. Black's values are negative.
+    final int[][] squareValues = new int[4][32];
+    final int mobility;
+
+    /**PUBLIC********************************************/
+    /* constructor of the default weights
+    /****************************************************/
+    public EvaluationWeights() {
+        this(defaultParameters());
+    }
+
+    /**PUBLIC********************************************/
+    /* constructor taking a vector of NUMBER_OF_PARAMETERS
+    /* weights, in the order of getParameters
+    /****************************************************/
+    public EvaluationWeights(int[] parameters) {
+        if (parameters.length != NUMBER_OF_PARAMETERS)
+            throw new IllegalArgumentException("expected " + NUMBER_OF_PARAMETERS + " weights, not " + parameters.length);
+        this.parameters = parameters.clone();
+        this.mobility = parameters[MOBILITY];
+
+        //add up every term of each piece type on each square, black's are white's mirrored
+        int[] features = new int[NUMBER_OF_PARAMETERS];
+        for (int square = 0; square < 32; square++) {
+            int man = dot(addSquareFeatures(square, false, 1, features));
+            int king = dot(addSquareFeatures(square, true, 1, features));
+            this.squareValues[0][square] = man;
+            this.squareValues[1][square] = king;
+            this.squareValues[2][31 - square] = -man;
+            this.squareValues[3][31 - square] = -king;
+        }
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the weights read from the passed weight file.
+    /* Weights missing from it keep their defaults.
+    /****************************************************/
+    public static EvaluationWeights load(File file) throws IOException {
+        Properties properties = new Properties();
+        InputStream in = new FileInputStream(file);
+        try {
+            properties.load(in);
+        } finally {
+            in.close();
+        }
+
+        int[] parameters = defaultParameters();
+        try {
+            for (int i = 0; i < TERMS.length; i++)
+                if (properties.getProperty(TERMS[i]) != null)
+                    parameters[i] = Integer.parseInt(properties.getProperty(TERMS[i]).trim());
+            readTable(properties, "manSquare", parameters, MAN_SQUARE);
+            readTable(properties, "kingSquare", parameters, KING_SQUARE);
+        } catch (NumberFormatException e) {
+            throw new IOException("bad weight in " + file + ": " + e.getMessage());
+        }
+        return new EvaluationWeights(parameters);
+    }
+
+    /**PUBLIC********************************************/
+    /* writes the weights to the passed weight file
+    /****************************************************/
+    public void save(File file) throws IOException {
+        PrintWriter out = new PrintWriter(new FileWriter(file));
+        try {
+            out.println("# checkers evaluation weights, from white's point of view, see EvaluationWeights");
+            for (int i = 0; i < TERMS.length; i++)
+                out.println(TERMS[i] + "=" + this.parameters[i]);
+            out.println("manSquare=" + joinTable(MAN_SQUARE));
+            out.println("kingSquare=" + joinTable(KING_SQUARE));
+        } finally {
+            out.close();
+        }
+        if (out.checkError())
+            throw new IOException("could not write " + file);
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the weights used unless others are set: the
+    /* file named by the checkers.weights property, or
+    /* DEFAULT_FILE if it exists, otherwise the defaults. A
+    /* file that can't be read is reported and not used.
+    /****************************************************/
+    public static synchronized EvaluationWeights getDefault() {
+        if (defaultWeights == null) {
+            File file = new File(System.getProperty("checkers.weights", DEFAULT_FILE));
+            defaultWeights = new EvaluationWeights();
+            if (file.exists()) {
+                try {
+                    defaultWeights = load(file);
+                } catch (IOException e) {
+                    System.err.println("Evaluation weights not loaded: " + e.getMessage());
+                }
+            }
+        }
+        return defaultWeights;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns a copy of the weight vector, and the name of
+    /* one of its weights
+    /****************************************************/
+    public int[] getParameters() {
+        return this.parameters.clone();
+    }
+
+    public static String getParameterName(int index) {
+        if (index < MAN_SQUARE)
+            return TERMS[index];
+        if (index < KING_SQUARE)
+            return "manSquare." + (index - MAN_SQUARE);
+        return "kingSquare." + (index - KING_SQUARE);
+    }
+
+    /**PUBLIC********************************************/
+    /* returns true if the weight can't be made from the
+    /* others: mobility and the square tables. The other
+    /* terms count exactly when table entries do.
+    /****************************************************/
+    public static boolean isIndependent(int index) {
+        return index == MOBILITY || index >= MAN_SQUARE;
+    }
+
+    /**PUBLIC********************************************/
+    /* puts into features, of NUMBER_OF_PARAMETERS counts,
+    /* how many times each weight counts in the position
+    /* from white's point of view, so that the score from
+    /* white's point of view is their dot product
+    /****************************************************/
+    public static void getFeatures(CheckersModel model, int[] features) {
+        Arrays.fill(features, 0);
+        int white = model.getWhitePieces();
+        int black = model.getBlackPieces();
+        int kings = model.getKingPieces();
+        for (int pieces = white | black; pieces != 0; pieces &= pieces - 1) {
+            int square = Integer.numberOfTrailingZeros(pieces);
+            boolean isWhite = (white & (1 << square)) != 0;
+            addSquareFeatures(isWhite ? square : 31 - square, (kings & (1 << square)) != 0, isWhite ? 1 : -1, features);
+        }
+        features[MOBILITY] = model.countSteps(true) - model.countSteps(false);
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the sum of the table values of the pieces on
+    /* the passed bitboards, from white's point of view
+    /****************************************************/
+    public int scorePieces(int white, int black, int kings) {
+        return sumTable(white & ~kings, this.squareValues[0]) + sumTable(white & kings, this.squareValues[1])
+                + sumTable(black & ~kings, this.squareValues[2]) + sumTable(black & kings, this.squareValues[3]);
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the weight of each step of mobility
+    /****************************************************/
+    public int getMobility() {
+        return this.mobility;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* adds sign to the count of every weight a man or king
+    /* on the passed square, as seen by white, counts in,
+    /* and returns features
+    /*===================================================*/
+    private static int[] addSquareFeatures(int square, boolean isKing, int sign, int[] features) {
+        int row = square >> 2;
+        int col = (square & 3) * 2 + (row % 2 == 0 ? 1 : 0);
+        boolean isCentre = row >= 2 && row <= 5 && col >= 2 && col <= 5;
+        if (isKing) {
+            features[KING] += sign;
+            features[KING_CENTRE] += isCentre ? sign : 0;
+            features[KING_EDGE] += col == 0 || col == 7 ? sign : 0;
+            features[KING_SQUARE + square] += sign;
+        }
+        else {
+            //white men start on rows 5 to 7 and move up the board, towards row 0
+            features[MAN] += sign;
+            features[BACK_RANK] += row == 7 ? sign : 0;
+            features[TEMPO] += (7 - row) * sign;
+            features[CENTRE] += isCentre ? sign : 0;
+            features[MAN_SQUARE + square] += sign;
+        }
+        return features;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the dot product of the counts with the
+    /* weights, and sets the counts back to 0
+    /*===================================================*/
+    private int dot(int[] features) {
+        int sum = 0;
+        for (int i = 0; i < NUMBER_OF_PARAMETERS; i++) {
+            sum += features[i] * this.parameters[i];
+            features[i] = 0;
+        }
+        return sum;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the default weight vector
+    /*===================================================*/
+    private static int[] defaultParameters() {
+        int[] parameters = new int[NUMBER_OF_PARAMETERS];
+        System.arraycopy(DEFAULT_TERMS, 0, parameters, 0, DEFAULT_TERMS.length);
+        return parameters;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* reads a table of 32 weights from the property of
+    /* the passed name into parameters, from start
+    /*===================================================*/
+    private static void readTable(Properties properties, String name, int[] parameters, int start) {
+        String value = properties.getProperty(name);
+        if (value == null)
+            return;
+        String[] numbers = value.split(",");
+        if (numbers.length != 32)
+            throw new NumberFormatException(name + " has " + numbers.length + " squares, not 32");
+        for (int i = 0; i < 32; i++)
+            parameters[start + i] = Integer.parseInt(numbers[i].trim());
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the table of 32 weights from start, joined
+    /* with commas
+    /*===================================================*/
+    private String joinTable(int start) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 32; i++)
+            text.append(i == 0 ? "" : ",").append(this.parameters[start + i]);
+        return text.toString();
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the sum of the table's values of the squares
+    /* whose bits are set
+    /*===================================================*/
+    private static int sumTable(int pieces, int[] table) {
+        int sum = 0;
+        while (pieces != 0) {
+            sum += table[Integer.numberOfTrailingZeros(pieces)];
+            pieces &= pieces - 1;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,327 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+public class GameArchive {
+
+    /* This class keeps complete games in one append-only archive file, so millions of games can be
+     * stored and read back without opening a file per game.
+     *
+     * The archive file starts with the magic number CKAR and a format version, followed by one record
+     * per game:
+     *      int     number of bytes in the rest of the record
+     *      long    time the game was played, in milliseconds since 1970
+     *      byte    result, WHITE_WINS, BLACK_WINS, DRAW or UNFINISHED
+     *      23      the starting position, see CheckersModel.writePosition
+     *      int     number of moves
+     *      long    each move, packed as in Move
+     * A second file, the archive's name followed by .idx, holds the offset of each record as a long,
+     * so game N is found without reading the games before it.
+     *
+     * Games are only ever appended: the record is written first, then its offset. If the program stops
+     * between the two, or part way through a record, opening the archive indexes any whole records the
+     * index is missing and cuts off a partly written one.
+     *
+     * Games are read through memory mapped buffers. The index is mapped whole, and the archive through a
+     * window of WINDOW_BYTES that moves along when a game outside it is read, so a scan of every game in
+     * order maps the file a window at a time. Games appended since the mappings were made are read with
+     * positional reads instead, so an archive that is read back soon after each append, as SessionStore's
+     * spill file is, isn't mapped again on every read: the index is mapped again only once
+     * INDEX_READ_GAMES games were appended after it, and the window only moved when a game lies outside
+     * the span it was mapped for. A game whose move count doesn't fit its record is reported as damaged.
+     *
+     * The public interface consists of:
+     *      Constructor taking the archive file, created if it doesn't exist
+     *      size() returns the number of games
+     *      append(start:CheckersModel, moves:long[], numberOfMoves:int, result:int, playedMillis:long)
+     *          adds a game and returns its number
+     *      getResult(game:int), getPlayedMillis(game:int), getNumberOfMoves(game:int) return a game's headers
+     *      readGame(game:int, start:CheckersModel, moves:long[]) sets the model to the game's starting
+     *          position, puts its moves into the array, and returns the number of moves
+     *      close() closes the files
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    //game results
+    public static final int WHITE_WINS = 0;
+    public static final int BLACK_WINS = 1;
+    public static final int DRAW = 2;
+    public static final int UNFINISHED = 3;
+
+    private static final int MAGIC = 0x434B4152; //CKAR
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_BYTES = 8;
+    private static final int LENGTH_BYTES = 4; //length at the start of every record
+    private static final int GAME_HEADER_BYTES = 8 + 1 + CheckersModel.POSITION_BYTES + 4; //record bytes before the moves
+    private static final int MOVES_OFFSET = LENGTH_BYTES + GAME_HEADER_BYTES;
+    private static final long WINDOW_BYTES = 64L * 1024 * 1024; //size of the mapped window of the archive
+    private static final int INDEX_READ_GAMES = 4096; //games appended after the index map before it is mapped again
+
+    private final FileChannel data; //the archive file
+    private final FileChannel index; //the index file
+    private long dataSize; //bytes in the archive file
+    private int numberOfGames;
+
+    private MappedByteBuffer window; //part of the archive mapped for reading, null if none
+    private long windowStart; //offset in the archive of the window's first byte
+    private MappedByteBuffer indexMap; //the index mapped for reading, null if none
+    private int indexMapGames; //number of offsets in indexMap
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(8); //an offset read from past the end of indexMap
+
+    /**PUBLIC********************************************/
+    /* constructor, opens the archive and its index,
+    /* creating them if they don't exist and repairing the
+    /* index if the last append didn't finish
+    /****************************************************/
+    public GameArchive(File file) throws IOException {
+        this.data = new RandomAccessFile(file, "rw").getChannel();
+        try {
+            this.index = new RandomAccessFile(new File(file.getPath() + ".idx"), "rw").getChannel();
+        } catch (IOException e) {
+            this.data.close();
+            throw e;
+        }
+
+        try {
+            if (this.data.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                writeFully(this.data, header, 0);
+                this.index.truncate(0);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+                readFully(this.data, header, 0);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+                    throw new IOException(file + " is not a game archive");
+            }
+            recover();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the number of games in the archive
+    /****************************************************/
+    public synchronized int size() {
+        return this.numberOfGames;
+    }
+
+    /**PUBLIC********************************************/
+    /* adds a game from the model's position with the
+    /* passed moves and result, and returns its number
+    /****************************************************/
+    public synchronized int append(CheckersModel start, long[] moves, int numberOfMoves, int result, long playedMillis)
+            throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(MOVES_OFFSET + numberOfMoves * 8);
+        record.putInt(record.capacity() - LENGTH_BYTES);
+        record.putLong(playedMillis);
+        record.put((byte) result);
+        start.writePosition(record);
+        record.putInt(numberOfMoves);
+        for (int i = 0; i < numberOfMoves; i++)
+            record.putLong(moves[i]);
+        record.flip();
+
+        //the record first, so the index never holds the offset of a record that isn't there
+        long offset = this.dataSize;
+        writeFully(this.data, record, offset);
+        ByteBuffer entry = ByteBuffer.allocate(8);
+        entry.putLong(offset).flip();
+        writeFully(this.index, entry, (long) this.numberOfGames * 8);
+
+        this.dataSize += record.capacity();
+        return this.numberOfGames++;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the passed game's result
+    /****************************************************/
+    public synchronized int getResult(int game) throws IOException {
+        return readRecord(getOffset(game), MOVES_OFFSET).get(LENGTH_BYTES + 8);
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the time the passed game was played, in
+    /* milliseconds since 1970
+    /****************************************************/
+    public synchronized long getPlayedMillis(int game) throws IOException {
+        return readRecord(getOffset(game), MOVES_OFFSET).getLong(LENGTH_BYTES);
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the number of moves of the passed game,
+    /* throws if it doesn't match the record's length
+    /****************************************************/
+    public synchronized int getNumberOfMoves(int game) throws IOException {
+        ByteBuffer header = readRecord(getOffset(game), MOVES_OFFSET);
+        int numberOfMoves = header.getInt(MOVES_OFFSET - 4);
+        if (numberOfMoves < 0 || (long) numberOfMoves * 8 != header.getInt(0) - GAME_HEADER_BYTES)
+            throw new IOException("game " + game + " has a damaged move count");
+        return numberOfMoves;
+    }
+
+    /**PUBLIC********************************************/
+    /* sets the passed model to the game's starting
+    /* position, puts its moves into the passed array, which
+    /* must hold getNumberOfMoves, and returns the number
+    /* of moves
+    /****************************************************/
+    public synchronized int readGame(int game, CheckersModel start, long[] moves) throws IOException {
+        long offset = getOffset(game);
+        int length = readRecord(offset, LENGTH_BYTES).getInt(0);
+        if (length < GAME_HEADER_BYTES)
+            throw new IOException("game " + game + " has a damaged length");
+        ByteBuffer record = readRecord(offset, LENGTH_BYTES + length);
+        record.position(LENGTH_BYTES + 8 + 1);
+
+        if (!start.readPosition(record))
+            throw new IOException("game " + game + " has a damaged starting position");
+        int numberOfMoves = record.getInt();
+        if (numberOfMoves < 0 || numberOfMoves > record.remaining() / 8)
+            throw new IOException("game " + game + " has a damaged move count");
+        for (int i = 0; i < numberOfMoves; i++)
+            moves[i] = record.getLong();
+        return numberOfMoves;
+    }
+
+    /**PUBLIC********************************************/
+    /* closes the archive and its index
+    /****************************************************/
+    public synchronized void close() throws IOException {
+        this.window = null;
+        this.indexMap = null;
+        try {
+            if (this.index != null)
+                this.index.close();
+        } finally {
+            this.data.close();
+        }
+    }
+
+    /*==PRIVATE==========================================*/
+    /* finds the number of games from the index, indexes
+    /* any whole records after the last indexed one, and
+    /* cuts off a partly written record
+    /*===================================================*/
+    private void recover() throws IOException {
+        long fileSize = this.data.size();
+        int indexed = (int) (this.index.size() / 8);
+        ByteBuffer entry = ByteBuffer.allocate(8);
+        ByteBuffer length = ByteBuffer.allocate(LENGTH_BYTES);
+
+        //drop index entries pointing past the end of the archive
+        long end = FILE_HEADER_BYTES;
+        while (indexed > 0) {
+            entry.clear();
+            readFully(this.index, entry, (long) (indexed - 1) * 8);
+            long offset = entry.getLong(0);
+            if (offset + LENGTH_BYTES <= fileSize) {
+                length.clear();
+                readFully(this.data, length, offset);
+                end = offset + LENGTH_BYTES + length.getInt(0);
+                if (end <= fileSize)
+                    break;
+            }
+            indexed--;
+        }
+        if (indexed == 0)
+            end = FILE_HEADER_BYTES;
+
+        //index whole records written after the last indexed one
+        while (end + LENGTH_BYTES <= fileSize) {
+            length.clear();
+            readFully(this.data, length, end);
+            int recordLength = length.getInt(0);
+            if (recordLength < GAME_HEADER_BYTES || end + LENGTH_BYTES + recordLength > fileSize)
+                break;
+            entry.clear();
+            entry.putLong(0, end);
+            writeFully(this.index, entry, (long) indexed * 8);
+            indexed++;
+            end += LENGTH_BYTES + recordLength;
+        }
+
+        this.index.truncate((long) indexed * 8);
+        this.data.truncate(end);
+        this.dataSize = end;
+        this.numberOfGames = indexed;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the archive offset of the passed game's
+    /* record. Offsets appended since the index was mapped
+    /* are read from the file, until INDEX_READ_GAMES of
+    /* them make it worth mapping the index again.
+    /*===================================================*/
+    private long getOffset(int game) throws IOException {
+        if (game < 0 || game >= this.numberOfGames)
+            throw new IndexOutOfBoundsException("game " + game + " of " + this.numberOfGames);
+        if (game >= this.indexMapGames) {
+            if (this.numberOfGames - this.indexMapGames < INDEX_READ_GAMES) {
+                this.indexEntry.clear();
+                readFully(this.index, this.indexEntry, (long) game * 8);
+                return this.indexEntry.getLong(0);
+            }
+            this.indexMap = this.index.map(FileChannel.MapMode.READ_ONLY, 0, (long) this.numberOfGames * 8);
+            this.indexMapGames = this.numberOfGames;
+        }
+        return this.indexMap.getLong(game * 8);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns a buffer of the passed number of bytes from
+    /* the offset, index 0 being the first. They come from
+    /* the mapped window, or are read from the file if they
+    /* were appended after the window was mapped but lie
+    /* in the span it was mapped for; otherwise the window
+    /* is moved to start at the offset.
+    /*===================================================*/
+    private ByteBuffer readRecord(long offset, int length) throws IOException {
+        if (length < 0 || offset + length > this.dataSize)
+            throw new IOException("game record at " + offset + " runs past the end of the archive");
+        if (this.window == null || offset < this.windowStart || offset + length > this.windowStart + WINDOW_BYTES) {
+            long size = Math.min(Math.max(WINDOW_BYTES, length), this.dataSize - offset);
+            this.window = this.data.map(FileChannel.MapMode.READ_ONLY, offset, size);
+            this.windowStart = offset;
+        }
+        else if (offset + length > this.windowStart + this.window.capacity()) {
+            ByteBuffer record = ByteBuffer.allocate(length);
+            readFully(this.data, record, offset);
+            return record;
+        }
+        ByteBuffer record = this.window.duplicate();
+        record.position((int) (offset - this.windowStart));
+        record.limit(record.position() + length);
+        return record.slice();
+    }
+
+    /*==PRIVATE==========================================*/
+    /* writes all of the buffer to the channel at the
+    /* passed position
+    /*===================================================*/
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* fills the buffer from the channel at the passed
+    /* position
+    /*===================================================*/
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0)
+                throw new IOException("unexpected end of file");
+            position += read;
+        }
+    }
+}
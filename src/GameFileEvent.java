@@ -0,0 +1,27 @@
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("checkers.GameFile")
+@Label("Game File")
+@Category({"Checkers", "Files"})
+public class GameFileEvent extends Event {
+
+    /* This class is the Java Flight Recorder event of loading or saving a game in the GUI, in any of its
+     * formats, the file dialog not included. It costs nothing when not recorded, see ComputerMoveEvent.
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    @Label("Operation")
+    String operation; //"load" or "save"
+
+    @Label("Path")
+    String path;
+
+    @Label("Succeeded")
+    boolean succeeded;
+}
@@ -0,0 +1,166 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram implements LatencyHistogramMBean {
+
+    /* This class counts how long something took, in nanoseconds, so percentiles of the times can be read
+     * at any time without keeping every time.
+     *
+     * Times are counted in buckets the way an HDR histogram does: times under 2*SUB_BUCKETS nanoseconds
+     * have a bucket each, and every power of two above that is split into SUB_BUCKETS buckets, so a
+     * percentile is within 1/SUB_BUCKETS (about 3%) of the true time from nanoseconds to hours.
+     *
+     * Any number of threads may record at once. Recording a time is one atomic increment of its bucket, an
+     * add to a LongAdder of the total time, which threads don't contend on, and a read of the maximum, which
+     * is only compare-and-set when the time is a new maximum. The number of times isn't counted apart: it
+     * is the sum of the buckets, added up when it is read. Counts are kept from the start of the program,
+     * or the last reset().
+     *
+     * It is also the MBean that shows the times through JMX, in microseconds, see Metrics.
+     *
+     * The public interface consists of:
+     *      Constructor taking the histogram's name
+     *      record(nanos:long) counts one time
+     *      getName(), getCount(), getMeanMicros(), getMaxMicros() return what the MBean shows
+     *      getPercentileMicros(percentile:double) returns the time the passed percentage of times were
+     *          within, and getP50Micros(), getP90Micros(), getP99Micros(), getP999Micros() common ones
+     *      reset() forgets every time counted
+     *      toString() returns a line of the count, mean, percentiles and maximum
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; //buckets per power of two
+    private static final int NUMBER_OF_BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS; //enough for any long
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(NUMBER_OF_BUCKETS);
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**PUBLIC********************************************/
+    /* constructor, takes the name the times are shown by
+    /****************************************************/
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**PUBLIC********************************************/
+    /* counts a time, negative times count as 0
+    /****************************************************/
+    public void record(long nanos) {
+        nanos = Math.max(0, nanos);
+        this.counts.incrementAndGet(bucket(nanos));
+        this.totalNanos.add(nanos);
+        long max = this.maxNanos.get();
+        while (nanos > max && !this.maxNanos.compareAndSet(max, nanos))
+            max = this.maxNanos.get();
+    }
+
+    /**PUBLIC********************************************/
+    /* return the histogram's name, the number of times
+    /* counted, and their mean and maximum
+    /****************************************************/
+    public String getName() {
+        return this.name;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++)
+            count += this.counts.get(i);
+        return count;
+    }
+
+    public double getMeanMicros() {
+        long count = getCount();
+        return count == 0 ? 0 : this.totalNanos.sum() / 1000.0 / count;
+    }
+
+    public double getMaxMicros() {
+        return this.maxNanos.get() / 1000.0;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the time within which the passed percentage
+    /* of the times counted were, 0 if none were counted
+    /****************************************************/
+    public double getPercentileMicros(double percentile) {
+        long count = getCount();
+        if (count == 0)
+            return 0;
+        long wanted = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+            seen += this.counts.get(i);
+            if (seen >= wanted)
+                return Math.min(upperBound(i), this.maxNanos.get()) / 1000.0;
+        }
+        return getMaxMicros();
+    }
+
+    /**PUBLIC********************************************/
+    /* return the common percentiles
+    /****************************************************/
+    public double getP50Micros() {
+        return getPercentileMicros(50);
+    }
+
+    public double getP90Micros() {
+        return getPercentileMicros(90);
+    }
+
+    public double getP99Micros() {
+        return getPercentileMicros(99);
+    }
+
+    public double getP999Micros() {
+        return getPercentileMicros(99.9);
+    }
+
+    /**PUBLIC********************************************/
+    /* forgets every time counted. Times recorded during
+    /* the reset may be partly kept.
+    /****************************************************/
+    public void reset() {
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++)
+            this.counts.set(i, 0);
+        this.totalNanos.reset();
+        this.maxNanos.set(0);
+    }
+
+    /**PUBLIC********************************************/
+    /* returns a line of the count, mean, percentiles and
+    /* maximum, in milliseconds
+    /****************************************************/
+    public String toString() {
+        return String.format("%-12s count %9d  mean %9.3f  p50 %9.3f  p90 %9.3f  p99 %9.3f  p99.9 %9.3f  max %9.3f ms",
+                this.name, getCount(), getMeanMicros() / 1000, getP50Micros() / 1000, getP90Micros() / 1000,
+                getP99Micros() / 1000, getP999Micros() / 1000, getMaxMicros() / 1000);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the bucket a time is counted in
+    /*===================================================*/
+    private static int bucket(long nanos) {
+        if (nanos < 2 * SUB_BUCKETS)
+            return (int) nanos;
+        int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (nanos >>> shift) - SUB_BUCKETS;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the longest time counted in a bucket
+    /*===================================================*/
+    private static long upperBound(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS)
+            return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,28 @@
+public interface LatencyHistogramMBean {
+
+    /* This interface is what JMX shows of a LatencyHistogram: how many times were counted, and their
+     * mean, percentiles and maximum in microseconds. reset() can be called from a JMX console.
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New interface in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    public String getName();
+
+    public long getCount();
+
+    public double getMeanMicros();
+
+    public double getP50Micros();
+
+    public double getP90Micros();
+
+    public double getP99Micros();
+
+    public double getP999Micros();
+
+    public double getMaxMicros();
+
+    public void reset();
+}
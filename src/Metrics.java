@@ -0,0 +1,223 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class Metrics implements MetricsMBean {
+
+    /* This class keeps the program's performance figures, so the speed of the computer player and the
+     * board can be watched while it runs: how many positions a second the searches visit, how often the
+     * transposition table answers, and how long a computer move, a valid moves query, a board repaint or
+     * a server command takes.
+     *
+     * Counters are LongAdders and times are LatencyHistograms, so any thread can add to them without
+     * waiting on another. A SearchEngine counts nodes, move lists and table use in plain fields of its
+     * own while it searches, and adds them here once when the search finishes, so the search itself runs
+     * as fast as before.
+     *
+     * start(dumpSeconds:int) registers the counters with the platform MBeanServer, as checkers:type=Search,
+     * and each histogram as checkers:type=Latency,name=<name>, so jconsole or any JMX client can read them,
+     * and can print a text report of them every dumpSeconds.
+     *
+     * The public interface consists of:
+     *      THINK, VALID_MOVES, REPAINT and COMMAND, the histograms of computer moves, sampled getValidMoves calls,
+     *          board repaints and server commands
+     *      searchFinished(...) adds a finished search's counts, called by SearchEngine
+     *      start(dumpSeconds:int) registers the MBeans, and prints a report to System.out every
+     *          dumpSeconds if it is more than 0
+     *      getInstance() returns the MBean of the counters
+     *      getSearches(), getNodes(), getNodesPerSecond(), getMoveGenerations(), getTableProbes(),
+     *          getTableHitRate(), getTableStores(), getTableCollisionRate() return the counters
+     *      getReport() returns a text report of the counters and histograms
+     *      reset() sets the counters and histograms back to 0
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    //time taken by a computer move, not counting pondering
+    public static final LatencyHistogram THINK = new LatencyHistogram("think");
+    //time taken by CheckersModel.getValidMoves, one call in CheckersModel.VALID_MOVES_SAMPLE
+    public static final LatencyHistogram VALID_MOVES = new LatencyHistogram("validMoves");
+    //time taken to paint the board, or the part of it that changed
+    public static final LatencyHistogram REPAINT = new LatencyHistogram("repaint");
+    //time taken by a CheckersServer to answer a command, not counting AI searches
+    public static final LatencyHistogram COMMAND = new LatencyHistogram("command");
+    private static final LatencyHistogram[] HISTOGRAMS = {THINK, VALID_MOVES, REPAINT, COMMAND};
+
+    private static final Metrics INSTANCE = new Metrics();
+    private static boolean started = false; //true once the MBeans are registered
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder(); //time spent searching, pondering included
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder moveGenerations = new LongAdder();
+    private final LongAdder tableProbes = new LongAdder();
+    private final LongAdder tableHits = new LongAdder();
+    private final LongAdder tableStores = new LongAdder();
+    private final LongAdder tableCollisions = new LongAdder();
+
+    /*==PRIVATE==========================================*/
+    /* constructor, there is one instance
+    /*===================================================*/
+    private Metrics() {
+    }
+
+    /**PUBLIC********************************************/
+    /* adds the counts of a finished search. A pondered
+    /* search is not counted as a computer move's time.
+    /****************************************************/
+    public static void searchFinished(boolean pondered, long nanos, long nodes, long moveGenerations,
+            long tableProbes, long tableHits, long tableStores, long tableCollisions) {
+        if (!pondered)
+            THINK.record(nanos);
+        INSTANCE.searches.increment();
+        INSTANCE.searchNanos.add(nanos);
+        INSTANCE.nodes.add(nodes);
+        INSTANCE.moveGenerations.add(moveGenerations);
+        INSTANCE.tableProbes.add(tableProbes);
+        INSTANCE.tableHits.add(tableHits);
+        INSTANCE.tableStores.add(tableStores);
+        INSTANCE.tableCollisions.add(tableCollisions);
+    }
+
+    /**PUBLIC********************************************/
+    /* registers the MBeans with the platform MBeanServer,
+    /* and prints a report to System.out every dumpSeconds
+    /* if it is more than 0. Calling it again does nothing.
+    /****************************************************/
+    public static synchronized void start(int dumpSeconds) {
+        if (started)
+            return;
+        started = true;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            register(server, INSTANCE, "checkers:type=Search");
+            for (LatencyHistogram histogram : HISTOGRAMS)
+                register(server, histogram, "checkers:type=Latency,name=" + histogram.getName());
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register metrics", e);
+        }
+
+        //print the report on a daemon thread, so it doesn't keep the program running
+        if (dumpSeconds > 0) {
+            ScheduledExecutorService dumpThread = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "Metrics dump");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            final PrintStream out = System.out;
+            dumpThread.scheduleAtFixedRate(new Runnable() {
+                public void run() {
+                    out.print(INSTANCE.getReport());
+                    out.flush();
+                }
+            }, dumpSeconds, dumpSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the MBean of the counters
+    /****************************************************/
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**PUBLIC********************************************/
+    /* return the counters, added up over every search
+    /****************************************************/
+    public long getSearches() {
+        return this.searches.sum();
+    }
+
+    public long getNodes() {
+        return this.nodes.sum();
+    }
+
+    public double getNodesPerSecond() {
+        long nanos = this.searchNanos.sum();
+        return nanos == 0 ? 0 : this.nodes.sum() * 1e9 / nanos;
+    }
+
+    public long getMoveGenerations() {
+        return this.moveGenerations.sum();
+    }
+
+    public long getTableProbes() {
+        return this.tableProbes.sum();
+    }
+
+    public double getTableHitRate() {
+        long probes = this.tableProbes.sum();
+        return probes == 0 ? 0 : (double) this.tableHits.sum() / probes;
+    }
+
+    public long getTableStores() {
+        return this.tableStores.sum();
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the fraction of stores that replaced another
+    /* position's entry
+    /****************************************************/
+    public double getTableCollisionRate() {
+        long stores = this.tableStores.sum();
+        return stores == 0 ? 0 : (double) this.tableCollisions.sum() / stores;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns a text report of the counters, and a line
+    /* for each histogram
+    /****************************************************/
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("metrics at ").append(new Date()).append('\n');
+        report.append(String.format("searches %d  nodes %d  nodes/s %.0f  move lists %d%n", getSearches(), getNodes(),
+                getNodesPerSecond(), getMoveGenerations()));
+        report.append(String.format("table probes %d  hit rate %.1f%%  stores %d  collision rate %.1f%%%n",
+                getTableProbes(), getTableHitRate() * 100, getTableStores(), getTableCollisionRate() * 100));
+        for (LatencyHistogram histogram : HISTOGRAMS)
+            report.append(histogram).append('\n');
+        return report.toString();
+    }
+
+    /**PUBLIC********************************************/
+    /* sets the counters and histograms back to 0
+    /****************************************************/
+    public void reset() {
+        this.searches.reset();
+        this.searchNanos.reset();
+        this.nodes.reset();
+        this.moveGenerations.reset();
+        this.tableProbes.reset();
+        this.tableHits.reset();
+        this.tableStores.reset();
+        this.tableCollisions.reset();
+        for (LatencyHistogram histogram : HISTOGRAMS)
+            histogram.reset();
+    }
+
+    /*==PRIVATE==========================================*/
+    /* registers an MBean under the passed name, unless
+    /* another copy of the program already registered one
+    /*===================================================*/
+    private static void register(MBeanServer server, Object mbean, String name) throws JMException {
+        try {
+            server.registerMBean(mbean, new ObjectName(name));
+        } catch (InstanceAlreadyExistsException e) {
+            //another class loader's copy of the metrics is shown instead
+        }
+    }
+}
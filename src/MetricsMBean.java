@@ -0,0 +1,31 @@
+public interface MetricsMBean {
+
+    /* This interface is what JMX shows of the search counters kept by Metrics: the searches run, the
+     * positions and move lists they went through, and how well the transposition table served them.
+     * Rates are fractions from 0 to 1. reset() can be called from a JMX console.
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New interface in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    public long getSearches();
+
+    public long getNodes();
+
+    public double getNodesPerSecond();
+
+    public long getMoveGenerations();
+
+    public long getTableProbes();
+
+    public double getTableHitRate();
+
+    public long getTableStores();
+
+    public double getTableCollisionRate();
+
+    public String getReport();
+
+    public void reset();
+}
@@ -0,0 +1,104 @@
+public class Move {
+
+    /* This class packs a move into a single long, so that moves can be generated into a
+     * caller-supplied long array without creating any objects. Squares are the model's
+     * square indices in [0,31] (row*4 + col/2).
+     *
+     * A move is a piece's whole turn. A jump holds every piece it takes, so a double (or
+     * triple etc) jump is one move from the square the piece starts on to the square it ends on.
+     *
+     * Bit layout:
+     *      bits 0-31   one bit per square of a piece taken, 0 if the move is not a jump
+     *      bits 32-36  square the piece moves from
+     *      bits 37-41  square the piece moves to
+     *      bit 42      set if the moving piece is kinged by the move
+     *
+     * Whether the pieces taken were kings is not part of the move, the model's undo record
+     * remembers it. getKey returns the bits that identify a move in 24 bits, for tables that
+     * can't hold a whole move.
+     *
+     * The public interface consists of:
+     *      step(from:int, to:int, promotion:boolean) returns a non-jumping move
+     *      jump(from:int, to:int, captured:int, promotion:boolean) returns a jump taking the pieces
+     *          on the captured squares
+     *      getFrom(move:long), getTo(move:long) return the squares the piece moves from and to
+     *      getCaptured(move:long) returns the squares of the pieces taken
+     *      isJump(move:long), isPromotion(move:long) return the move's flags
+     *      getKey(move:long) returns a non-zero 24 bit key, equal for equal moves
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    private static final int SQUARE_MASK = 0x1F;
+    private static final int FROM_SHIFT = 32;
+    private static final int TO_SHIFT = 37;
+    private static final long PROMOTION_FLAG = 1L << 42;
+    private static final long CAPTURED_MASK = 0xFFFFFFFFL;
+
+    private Move() {
+    }
+
+    /**PUBLIC********************************************/
+    /* returns a move that doesn't take a piece
+    /****************************************************/
+    public static long step(int from, int to, boolean promotion) {
+        return ((long) from << FROM_SHIFT) | ((long) to << TO_SHIFT) | (promotion ? PROMOTION_FLAG : 0);
+    }
+
+    /**PUBLIC********************************************/
+    /* returns a move that takes the pieces on the squares
+    /* set in captured
+    /****************************************************/
+    public static long jump(int from, int to, int captured, boolean promotion) {
+        return step(from, to, promotion) | (captured & CAPTURED_MASK);
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the square the piece moves from
+    /****************************************************/
+    public static int getFrom(long move) {
+        return (int) (move >>> FROM_SHIFT) & SQUARE_MASK;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the square the piece moves to
+    /****************************************************/
+    public static int getTo(long move) {
+        return (int) (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns one bit per square of a piece taken, 0 if
+    /* the move is not a jump
+    /****************************************************/
+    public static int getCaptured(long move) {
+        return (int) move;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns true if the move takes a piece
+    /****************************************************/
+    public static boolean isJump(long move) {
+        return (int) move != 0;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns true if the moving piece is kinged
+    /****************************************************/
+    public static boolean isPromotion(long move) {
+        return (move & PROMOTION_FLAG) != 0;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns a 24 bit key for the move: the squares and
+    /* promotion, 12 bits mixed from the pieces taken, and
+    /* a top bit so it is never 0. Different jumps between
+    /* the same two squares almost always get different keys.
+    /****************************************************/
+    public static int getKey(long move) {
+        int captured = (int) move;
+        return (1 << 23) | (((captured * 0x9E3779B1) >>> 20) << 11) | ((int) (move >>> FROM_SHIFT) & 0x7FF);
+    }
+}
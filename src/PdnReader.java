@@ -0,0 +1,441 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class PdnReader {
+
+    /* This class reads games in PDN (Portable Draughts Notation) one at a time, so collections of any
+     * size can be read without holding more than one game. Squares, colours and results are converted as
+     * described in PdnWriter: PDN's Black is the model's WHITE, the player who moves first.
+     *
+     * The text is read through a fixed buffer and split into tags, comments and moves as it arrives.
+     * Every move is checked against the model's rules as it is read, by finding it among the legal moves
+     * of the position so far; the starting position is the usual one unless a FEN tag sets another.
+     * A move may give just its first and last squares, or every square a jump lands on, with - or x
+     * between them. Comments in braces, variations in brackets, move numbers, NAGs and ! ? marks are
+     * skipped.
+     *
+     * A game ends at its result (1-0, 0-1, 1/2-1/2, *, or 2-0, 0-2, 1-1, 0-0), at the next game's tags,
+     * or at the end of the text. If a game holds an illegal move or a bad tag, the rest of it is skipped
+     * and so is the game; getSkippedGames() counts them and getLastError() says what was wrong with the
+     * last one, so one bad game doesn't stop a large collection from being read.
+     *
+     * The public interface consists of:
+     *      Constructor taking the Reader the games are read from
+     *      nextGame() reads the next legal game, returns false at the end of the text
+     *      getTag(name:String) returns a tag of the game, or null
+     *      getStart() returns a model set to the game's starting position
+     *      getMoves() and getNumberOfMoves() return the game's moves, packed as in Move
+     *      getResult() returns the game's result, as in GameArchive
+     *      getSkippedGames() and getLastError() tell about games that were skipped
+     *      findMove(model:CheckersModel, word:String) returns the legal move a PDN move stands for in the
+     *          model's position, or SearchEngine.NO_MOVE
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_TOKEN_LENGTH = 256; //longer tag values and words are cut short
+    private static final int MAX_SQUARES = 16; //squares a move can give, more than any jump lands on
+    private static final int END_OF_TEXT = -1;
+    private static final int FIRST_PLAYER_START = 0xFFF00000; //model squares of WHITE at the start
+    private static final int SECOND_PLAYER_START = 0x00000FFF; //model squares of BLACK at the start
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int bufferLength = 0;
+    private int bufferPosition = 0;
+    private final StringBuilder token = new StringBuilder();
+
+    private final Map<String, String> tags = new LinkedHashMap<String, String>();
+    private final CheckersModel start = new CheckersModel();
+    private final CheckersModel model = new CheckersModel(); //position after the moves read so far
+    private long[] moves = new long[256];
+    private int numberOfMoves;
+    private int result;
+    private String error; //what is wrong with the game being read, null if nothing
+    private boolean movesStarted; //true once a move or move number of the game is read
+
+    private int skippedGames = 0;
+    private String lastError = null;
+
+    /**PUBLIC********************************************/
+    /* constructor, takes the Reader games are read from
+    /****************************************************/
+    public PdnReader(Reader in) {
+        this.in = in;
+    }
+
+    /**PUBLIC********************************************/
+    /* reads the next game, skipping games with an illegal
+    /* move or bad tag. Returns false at the end of the text.
+    /****************************************************/
+    public boolean nextGame() throws IOException {
+        while (true) {
+            startGame();
+            boolean started = false;
+            boolean ended = false;
+            while (!ended) {
+                int c = skipSpaces();
+                if (c == END_OF_TEXT) {
+                    if (!started)
+                        return false;
+                    ended = true;
+                }
+                else if (c == '[' && this.movesStarted) {
+                    this.bufferPosition--; //the next game's first tag
+                    ended = true;
+                }
+                else {
+                    started = true;
+                    if (c == '[')
+                        readTag();
+                    else if (c == '{')
+                        skipPast('}');
+                    else if (c == '(')
+                        skipVariation();
+                    else if (c == ';' || c == '%')
+                        skipPast('\n');
+                    else {
+                        this.bufferPosition--;
+                        ended = readWord();
+                    }
+                }
+            }
+
+            if (this.error == null)
+                return true;
+            this.skippedGames++;
+            this.lastError = this.error;
+        }
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the value of the game's tag with the passed
+    /* name, or null if it has none
+    /****************************************************/
+    public String getTag(String name) {
+        return this.tags.get(name);
+    }
+
+    /**PUBLIC********************************************/
+    /* returns a new model set to the game's starting
+    /* position
+    /****************************************************/
+    public CheckersModel getStart() {
+        return new CheckersModel(this.start);
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the game's moves, the array is reused by
+    /* the next game
+    /****************************************************/
+    public long[] getMoves() {
+        return this.moves;
+    }
+
+    public int getNumberOfMoves() {
+        return this.numberOfMoves;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the game's result, as in GameArchive
+    /****************************************************/
+    public int getResult() {
+        return this.result;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the number of games skipped, and what was
+    /* wrong with the last one
+    /****************************************************/
+    public int getSkippedGames() {
+        return this.skippedGames;
+    }
+
+    public String getLastError() {
+        return this.lastError;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the legal move of the model's player to move
+    /* that a PDN move stands for, or NO_MOVE if there is
+    /* none or it could be more than one
+    /****************************************************/
+    public static long findMove(CheckersModel model, String word) {
+        int[] squares = new int[MAX_SQUARES];
+        int numberOfSquares = 0;
+        int number = 0;
+        for (int i = 0; i <= word.length(); i++) {
+            char c = i < word.length() ? word.charAt(i) : '-';
+            if (c >= '0' && c <= '9' && number < 100)
+                number = number * 10 + c - '0';
+            else if ((c == '-' || c == 'x' || c == 'X' || c == ':') && number >= 1 && number <= 32
+                    && numberOfSquares < MAX_SQUARES) {
+                squares[numberOfSquares++] = PdnWriter.fromPdnSquare(number);
+                number = 0;
+            }
+            else
+                return SearchEngine.NO_MOVE;
+        }
+        if (numberOfSquares < 2)
+            return SearchEngine.NO_MOVE;
+
+        //the squares jumped over, if every square landed on is given
+        int captured = 0;
+        if (numberOfSquares > 2)
+            for (int i = 1; i < numberOfSquares; i++) {
+                int[] from = CheckersModel.toLocation(squares[i - 1]);
+                int[] to = CheckersModel.toLocation(squares[i]);
+                if (Math.abs(from[0] - to[0]) != 2 || Math.abs(from[1] - to[1]) != 2)
+                    return SearchEngine.NO_MOVE;
+                captured |= 1 << CheckersModel.toSquare(new int[] {(from[0] + to[0]) / 2, (from[1] + to[1]) / 2});
+            }
+
+        long[] legalMoves = new long[CheckersModel.MAX_MOVES];
+        int numberOfLegalMoves = model.generateMoves(legalMoves);
+        long found = SearchEngine.NO_MOVE;
+        for (int i = 0; i < numberOfLegalMoves; i++) {
+            long move = legalMoves[i];
+            if (Move.getFrom(move) != squares[0] || Move.getTo(move) != squares[numberOfSquares - 1]
+                    || (numberOfSquares > 2 && Move.getCaptured(move) != captured))
+                continue;
+            //two paths between the same squares need the squares landed on to tell them apart, but a king
+            //going round a loop either way is the same move twice
+            if (found != SearchEngine.NO_MOVE && move != found)
+                return SearchEngine.NO_MOVE;
+            found = move;
+        }
+        return found;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* forgets the last game and sets up the starting
+    /* position for the next one
+    /*===================================================*/
+    private void startGame() {
+        this.tags.clear();
+        this.start.setPosition(FIRST_PLAYER_START, SECOND_PLAYER_START, 0, true);
+        this.model.setPosition(FIRST_PLAYER_START, SECOND_PLAYER_START, 0, true);
+        this.numberOfMoves = 0;
+        this.result = GameArchive.UNFINISHED;
+        this.error = null;
+        this.movesStarted = false;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* reads a tag after its [, and sets up the position
+    /* if it is a FEN tag
+    /*===================================================*/
+    private void readTag() throws IOException {
+        this.token.setLength(0);
+        int c = skipSpaces();
+        while (c != END_OF_TEXT && c != '"' && c != ']' && !Character.isWhitespace(c)) {
+            append(c);
+            c = read();
+        }
+        String name = this.token.toString();
+
+        //the value is between quotes, with \ before a quote or \ in it
+        this.token.setLength(0);
+        while (c != END_OF_TEXT && c != '"' && c != ']')
+            c = read();
+        if (c == '"') {
+            c = read();
+            while (c != END_OF_TEXT && c != '"') {
+                if (c == '\\')
+                    c = read();
+                append(c);
+                c = read();
+            }
+        }
+        if (c != ']')
+            skipPast(']');
+        String value = this.token.toString();
+        this.tags.put(name, value);
+
+        if (name.equals("FEN") && this.error == null && !setUpFen(value))
+            this.error = "bad FEN tag " + value;
+        if (name.equals("Result") && this.result == GameArchive.UNFINISHED)
+            this.result = parseResult(value);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* reads a move, move number or result. Returns true
+    /* if it was the result, which ends the game
+    /*===================================================*/
+    private boolean readWord() throws IOException {
+        this.token.setLength(0);
+        int c = read();
+        while (c != END_OF_TEXT && !Character.isWhitespace(c) && "[]{}();".indexOf(c) < 0) {
+            append(c);
+            c = read();
+        }
+        if (c != END_OF_TEXT)
+            this.bufferPosition--;
+        String word = this.token.toString();
+
+        int wordResult = parseResult(word);
+        if (wordResult >= 0) {
+            this.result = wordResult;
+            return true;
+        }
+        this.movesStarted = true;
+
+        //drop a move number in front, and marks after
+        word = word.substring(word.lastIndexOf('.') + 1);
+        int end = word.length();
+        while (end > 0 && (word.charAt(end - 1) == '!' || word.charAt(end - 1) == '?'))
+            end--;
+        word = word.substring(0, end);
+        if (word.length() == 0 || word.charAt(0) == '$' || this.error != null)
+            return false;
+
+        if (!makeMove(word))
+            this.error = "illegal move " + word + " after " + this.numberOfMoves + " moves";
+        return false;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* finds the move in the position's legal moves and
+    /* makes it, returns false if it isn't legal
+    /*===================================================*/
+    private boolean makeMove(String word) {
+        long found = findMove(this.model, word);
+        if (found == SearchEngine.NO_MOVE)
+            return false;
+
+        this.model.makeMove(found);
+        if (this.numberOfMoves == this.moves.length)
+            this.moves = Arrays.copyOf(this.moves, this.numberOfMoves * 2);
+        this.moves[this.numberOfMoves++] = found;
+        return true;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* sets the starting position from a FEN tag's value,
+    /* for example B:W21,22,K30:B1,2,K12. Returns false if
+    /* it isn't valid, or moves were already read.
+    /*===================================================*/
+    private boolean setUpFen(String fen) {
+        if (this.numberOfMoves > 0)
+            return false;
+        String[] parts = fen.replace(" ", "").replace(".", "").split(":");
+        if (parts.length != 3 || !(parts[0].equals("B") || parts[0].equals("W")))
+            return false;
+
+        int[] pieces = new int[2]; //model WHITE, model BLACK
+        int kings = 0;
+        for (int i = 1; i < 3; i++) {
+            if (parts[i].length() == 0 || (parts[i].charAt(0) != 'W' && parts[i].charAt(0) != 'B'))
+                return false;
+            int side = parts[i].charAt(0) == 'B' ? 0 : 1;
+            for (String square : parts[i].substring(1).split(",")) {
+                if (square.length() == 0)
+                    continue;
+                boolean isKing = square.charAt(0) == 'K';
+                int pdnSquare;
+                try {
+                    pdnSquare = Integer.parseInt(isKing ? square.substring(1) : square);
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+                if (pdnSquare < 1 || pdnSquare > 32)
+                    return false;
+                pieces[side] |= 1 << PdnWriter.fromPdnSquare(pdnSquare);
+                if (isKing)
+                    kings |= 1 << PdnWriter.fromPdnSquare(pdnSquare);
+            }
+        }
+
+        boolean whiteToMove = parts[0].equals("B");
+        return this.start.setPosition(pieces[0], pieces[1], kings, whiteToMove)
+                && this.model.setPosition(pieces[0], pieces[1], kings, whiteToMove);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the GameArchive result of a PDN result, or
+    /* -1 if the word isn't one
+    /*===================================================*/
+    private static int parseResult(String word) {
+        if (word.equals("1-0") || word.equals("2-0"))
+            return GameArchive.WHITE_WINS;
+        if (word.equals("0-1") || word.equals("0-2"))
+            return GameArchive.BLACK_WINS;
+        if (word.equals("1/2-1/2") || word.equals("1-1") || word.equals("0-0"))
+            return GameArchive.DRAW;
+        if (word.equals("*"))
+            return GameArchive.UNFINISHED;
+        return -1;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* skips a variation after its (, and any variations
+    /* inside it
+    /*===================================================*/
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            int c = read();
+            if (c == END_OF_TEXT)
+                return;
+            if (c == '(')
+                depth++;
+            else if (c == ')')
+                depth--;
+            else if (c == '{')
+                skipPast('}');
+        }
+    }
+
+    /*==PRIVATE==========================================*/
+    /* skips past the next passed character
+    /*===================================================*/
+    private void skipPast(char end) throws IOException {
+        int c = read();
+        while (c != END_OF_TEXT && c != end)
+            c = read();
+    }
+
+    /*==PRIVATE==========================================*/
+    /* skips white space, returns the next character
+    /*===================================================*/
+    private int skipSpaces() throws IOException {
+        int c = read();
+        while (c != END_OF_TEXT && Character.isWhitespace(c))
+            c = read();
+        return c;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* adds a character to the token, unless it is too long
+    /*===================================================*/
+    private void append(int c) {
+        if (this.token.length() < MAX_TOKEN_LENGTH)
+            this.token.append((char) c);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the next character, refilling the buffer
+    /* when it is used up, or END_OF_TEXT
+    /*===================================================*/
+    private int read() throws IOException {
+        if (this.bufferPosition == this.bufferLength) {
+            //keep the last character, so one can always be put back
+            if (this.bufferLength > 0) {
+                this.buffer[0] = this.buffer[this.bufferLength - 1];
+                this.bufferLength = 1;
+                this.bufferPosition = 1;
+            }
+            int read = this.in.read(this.buffer, this.bufferLength, BUFFER_SIZE - this.bufferLength);
+            if (read <= 0)
+                return END_OF_TEXT;
+            this.bufferLength += read;
+        }
+        return this.buffer[this.bufferPosition++];
+    }
+}
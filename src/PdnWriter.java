@@ -0,0 +1,237 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+public class PdnWriter {
+
+    /* This class writes games in PDN (Portable Draughts Notation), the text format public checkers
+     * game collections are kept in, one game at a time so any number of games can be written to one file.
+     *
+     * PDN numbers the dark squares 1 to 32, starting from the corner of the player who moves first, and
+     * calls that player Black. In this program white moves first from the bottom of the board, so the
+     * model's WHITE is PDN's Black and the model's BLACK is PDN's White, and a model square (row*4 + col/2)
+     * is PDN square 32 - square. The result is written with the first player's score first, 1-0 if the
+     * model's WHITE won, the same as the Tournament's results file.
+     *
+     * Each game is written as its tags, then its moves numbered in pairs, then its result:
+     *      [Event "Tournament"]
+     *      [Result "1-0"]
+     *      1. 11-15 23-19 2. 8-11 22-17 ... 1-0
+     * A FEN tag is added if the game doesn't start from the starting position with the first player to
+     * move. Jumps are written with every square the piece lands on, for example 15x24x31, so a reader
+     * never has to choose between two paths.
+     *
+     * The public interface consists of:
+     *      Constructor taking the Writer the games are written to
+     *      writeGame(tags:Map, start:CheckersModel, moves:long[], numberOfMoves:int, result:int) writes a
+     *          game played from the start position, with the result as in GameArchive
+     *      flush() and close() flush and close the Writer
+     *      toPdnSquare(square:int) and fromPdnSquare(pdnSquare:int) convert between model squares and
+     *          PDN square numbers
+     *      resultToString(result:int) returns the PDN result of a GameArchive result
+     *      moveToString(model:CheckersModel, move:long) returns the PDN of a move in the model's position
+     *      toFen(model:CheckersModel) returns the FEN of the model's position
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    private static final int LINE_LENGTH = 79; //lines of moves are wrapped before this length
+    private static final int FIRST_PLAYER_START = 0xFFF00000; //model squares of WHITE at the start
+    private static final int SECOND_PLAYER_START = 0x00000FFF; //model squares of BLACK at the start
+
+    private final Writer out;
+    private final StringBuilder line = new StringBuilder(); //line of moves being written
+
+    /**PUBLIC********************************************/
+    /* constructor, takes the Writer games are written to
+    /****************************************************/
+    public PdnWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the PDN number of a model square
+    /****************************************************/
+    public static int toPdnSquare(int square) {
+        return 32 - square;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the model square of a PDN number
+    /****************************************************/
+    public static int fromPdnSquare(int pdnSquare) {
+        return 32 - pdnSquare;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the PDN result of a GameArchive result,
+    /* the first player's (model WHITE's) score first
+    /****************************************************/
+    public static String resultToString(int result) {
+        if (result == GameArchive.WHITE_WINS)
+            return "1-0";
+        if (result == GameArchive.BLACK_WINS)
+            return "0-1";
+        if (result == GameArchive.DRAW)
+            return "1/2-1/2";
+        return "*";
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the PDN of a move the model's player to
+    /* move can make, a jump with every square it lands on
+    /****************************************************/
+    public static String moveToString(CheckersModel model, long move) {
+        int from = Move.getFrom(move);
+        if (!Move.isJump(move))
+            return toPdnSquare(from) + "-" + toPdnSquare(Move.getTo(move));
+
+        boolean isKing = (model.getKingPieces() & (1 << from)) != 0;
+        int empty = ~(model.getWhitePieces() | model.getBlackPieces()) | (1 << from);
+        int[] path = new int[CheckersModel.MAX_MOVES];
+        int length = findPath(path, from, Move.getTo(move), Move.getCaptured(move), empty, isKing ? 0 : model.isWhiteTurn ? -1 : 1, 0);
+        StringBuilder text = new StringBuilder();
+        text.append(toPdnSquare(from));
+        for (int i = 0; i < length; i++)
+            text.append('x').append(toPdnSquare(path[i]));
+        return text.toString();
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the FEN of the position, for example
+    /* B:W21,22,K30:B1,2,K12, the player to move first
+    /****************************************************/
+    public static String toFen(CheckersModel model) {
+        return (model.isWhiteTurn ? "B" : "W") + ":W" + fenSquares(model.getBlackPieces(), model.getKingPieces())
+                + ":B" + fenSquares(model.getWhitePieces(), model.getKingPieces());
+    }
+
+    /**PUBLIC********************************************/
+    /* writes a game played from the start position with
+    /* the passed moves. The tags are written first, in the
+    /* map's order, except Result and FEN which are written
+    /* from the game. The tags may be null.
+    /****************************************************/
+    public void writeGame(Map<String, String> tags, CheckersModel start, long[] moves, int numberOfMoves, int result)
+            throws IOException {
+        if (tags != null)
+            for (Map.Entry<String, String> tag : tags.entrySet())
+                if (!tag.getKey().equals("Result") && !tag.getKey().equals("FEN"))
+                    writeTag(tag.getKey(), tag.getValue());
+        writeTag("Result", resultToString(result));
+        if (!start.isWhiteTurn || start.getWhitePieces() != FIRST_PLAYER_START
+                || start.getBlackPieces() != SECOND_PLAYER_START || start.getKingPieces() != 0)
+            writeTag("FEN", toFen(start));
+
+        //replay the moves on a copy, to find the squares each jump lands on
+        CheckersModel model = new CheckersModel(start);
+        int moveNumber = 1;
+        this.line.setLength(0);
+        for (int i = 0; i < numberOfMoves; i++) {
+            //a move number is kept on the same line as the move after it
+            boolean firstPlayer = model.isWhiteTurn;
+            if (firstPlayer)
+                writeWord(moveNumber + ". " + moveToString(model, moves[i]));
+            else if (i == 0)
+                writeWord(moveNumber + "... " + moveToString(model, moves[i]));
+            else
+                writeWord(moveToString(model, moves[i]));
+            model.makeMove(moves[i]);
+            if (!firstPlayer)
+                moveNumber++;
+        }
+        writeWord(resultToString(result));
+        this.out.write(this.line.toString());
+        this.out.write("\n\n");
+    }
+
+    /**PUBLIC********************************************/
+    /* flushes the Writer
+    /****************************************************/
+    public void flush() throws IOException {
+        this.out.flush();
+    }
+
+    /**PUBLIC********************************************/
+    /* closes the Writer
+    /****************************************************/
+    public void close() throws IOException {
+        this.out.close();
+    }
+
+    /*==PRIVATE==========================================*/
+    /* writes a tag, escaping quotes and backslashes in
+    /* its value
+    /*===================================================*/
+    private void writeTag(String name, String value) throws IOException {
+        this.out.write("[" + name + " \"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"]\n");
+    }
+
+    /*==PRIVATE==========================================*/
+    /* adds a word to the line of moves, starting a new
+    /* line if it wouldn't fit
+    /*===================================================*/
+    private void writeWord(String word) throws IOException {
+        if (this.line.length() > 0 && this.line.length() + 1 + word.length() > LINE_LENGTH) {
+            this.out.write(this.line.toString());
+            this.out.write('\n');
+            this.line.setLength(0);
+        }
+        if (this.line.length() > 0)
+            this.line.append(' ');
+        this.line.append(word);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* finds the squares a jump from square lands on,
+    /* taking exactly the captured pieces and ending on to,
+    /* into path from the passed length. Returns the path's
+    /* length, or -1 if there is none. rowStep is the
+    /* direction a man moves, 0 for a king.
+    /*===================================================*/
+    private static int findPath(int[] path, int square, int to, int captured, int empty, int rowStep, int length) {
+        if (captured == 0)
+            return square == to ? length : -1;
+        int[] loc = CheckersModel.toLocation(square);
+        for (int rowDirection = -1; rowDirection <= 1; rowDirection += 2) {
+            if (rowStep != 0 && rowDirection != rowStep)
+                continue;
+            for (int colDirection = -1; colDirection <= 1; colDirection += 2) {
+                int row = loc[0] + 2 * rowDirection;
+                int col = loc[1] + 2 * colDirection;
+                if (row < 0 || row > 7 || col < 0 || col > 7)
+                    continue;
+                int jumped = CheckersModel.toSquare(new int[] {loc[0] + rowDirection, loc[1] + colDirection});
+                int landing = CheckersModel.toSquare(new int[] {row, col});
+                if ((captured & (1 << jumped)) == 0 || (empty & (1 << landing)) == 0)
+                    continue;
+                path[length] = landing;
+                int found = findPath(path, landing, to, captured & ~(1 << jumped), empty, rowStep, length + 1);
+                if (found >= 0)
+                    return found;
+            }
+        }
+        return -1;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the PDN squares of the pieces in order, with
+    /* a K before kings, separated by commas
+    /*===================================================*/
+    private static String fenSquares(int pieces, int kings) {
+        StringBuilder text = new StringBuilder();
+        for (int pdnSquare = 1; pdnSquare <= 32; pdnSquare++) {
+            int square = 1 << fromPdnSquare(pdnSquare);
+            if ((pieces & square) == 0)
+                continue;
+            if (text.length() > 0)
+                text.append(',');
+            if ((kings & square) != 0)
+                text.append('K');
+            text.append(pdnSquare);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,611 @@
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+public class SearchEngine {
+
+    /* This class chooses the computer's moves by searching ahead from the current position.
+     *
+     * It runs a negamax search with alpha-beta pruning directly on the passed CheckersModel,
+     * making and unmaking packed moves (see Move) so that no boards are copied. Positions at the
+     * end of the search are scored by evaluate, which counts material and rewards good squares, with
+     * the EvaluationWeights set, read from a weight file or the defaults. The model keeps the sum of its
+     * pieces' square values as moves are made, so evaluate only adds the mobility term to it.
+     * Each packed move is a whole turn, a double (or triple etc) jump included, so every move uses
+     * up one move of depth. Jumps are never cut off at the depth limit, since they are mandatory
+     * and would make the score meaningless.
+     *
+     * The search is iteratively deepened: it searches 1 move ahead, then 2, and so on up to the depth.
+     * If a time or node limit is set and runs out, the search stops and the best move of the last
+     * completed iteration is returned, so the time a move takes is bounded whatever the position.
+     *
+     * Results are kept in a TranspositionTable by position hash, so positions reached again through
+     * a different order of moves are answered from the table, and the best move found for a position
+     * is searched first the next time it is reached.
+     *
+     * With more than one thread the search is a Lazy SMP search: helper threads search copies of
+     * the position at the same time as the main thread, sharing its TranspositionTable, and the main
+     * thread's result is returned. Half the helpers start one move deeper so that the threads are
+     * spread over different depths. The helpers fill the table with results the main thread then
+     * reads instead of searching, which is where the speedup comes from.
+     *
+     * A search also stops when its thread is interrupted, so a search submitted to an executor can be
+     * cancelled with Future.cancel(true) even if it hasn't started yet. ponder searches the position the
+     * opponent is expected to leave while the opponent thinks; if they make the expected move, the next
+     * findBestMove finds the pondered results in the table and gets deeper in the same time.
+     *
+     * Every search adds its time, nodes, move lists generated and table probes, hits, stores and
+     * collisions to Metrics when it finishes. They are counted in plain fields while searching, so
+     * counting costs no more than counting nodes did. Each iteration of the main thread is also recorded
+     * as a Java Flight Recorder SearchIterationEvent, which costs nothing unless a recording is running.
+     *
+     * The public interface consists of:
+     *      Constructor taking the number of moves to look ahead, with a table of DEFAULT_TABLE_MEGABYTES
+     *      Constructor taking the number of moves to look ahead and the table's memory budget in megabytes
+     *      setDepth(depth:int) and getDepth() change and return the furthest ahead the engine looks
+     *      findBestMove(model:CheckersModel) returns the best packed move (a long) for the player whose turn
+     *          it is, or NO_MOVE if there are no legal moves. The model is left unchanged.
+     *      setTimeLimit(milliseconds:long) and setNodeLimit(nodes:long) bound each search, 0 for no limit
+     *      setThreads(threads:int) and getThreads() change and return the number of search threads
+     *      stop() asks a running search, on another thread, to return as soon as possible
+     *      ponder(model:CheckersModel) searches the position with no time or node limit, until stopped or
+     *          its thread is interrupted, only to fill the table
+     *      getExpectedMove(model:CheckersModel) returns the move the table holds as best for the position
+     *      shutdown() ends the helper threads, the engine then searches on one thread
+     *      getNodes() returns the number of positions visited by the last search, on all threads
+     *      getCompletedDepth() returns the deepest iteration the last search completed
+     *      evaluate(model:CheckersModel) returns the score of the position for the player to move
+     *      setWeights(weights:EvaluationWeights) and getWeights() change and return the evaluation's weights
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    public static final long NO_MOVE = -1; //returned when there is no move to make
+    public static final int MAX_PLY = 128; //deepest the search may go
+    public static final int DEFAULT_TABLE_MEGABYTES = 16; //memory used by the transposition table
+
+    //scores, a win is worth more than any material difference
+    public static final int WIN = 100000;
+    private static final int INFINITY = WIN + 1;
+
+    private int depth; //number of moves to look ahead
+    private long nodes; //positions visited by the last search
+    //move lists generated, and table probes, hits, stores and collisions of the last search, for Metrics
+    private long moveGenerations;
+    private long tableProbes;
+    private long tableHits;
+    private long tableStores;
+    private long tableCollisions;
+    private boolean pondering = false; //true while ponder searches, so Metrics doesn't count it as a move
+    private long timeLimit = 0; //longest a search may take in milliseconds, 0 for no limit
+    private long nodeLimit = 0; //most positions a search may visit, 0 for no limit
+    private long deadline; //System.nanoTime() when the current search runs out of time
+    private boolean aborted; //true once the current search has run out of time or nodes
+    private volatile boolean stopRequested; //set by another thread to end the current search
+    private int completedDepth; //deepest iteration the last search completed
+    private final long[][] moveLists = new long[MAX_PLY + 1][CheckersModel.MAX_MOVES]; //one move list per ply
+    private final TranspositionTable table; //results of positions already searched, shared with helpers
+    private EvaluationWeights weights = EvaluationWeights.getDefault(); //weights positions are scored with
+    private SearchEngine[] helpers = new SearchEngine[0]; //engines searching on the helper threads
+    private ExecutorService helperThreads = null; //runs the helpers, null if single threaded
+
+    /**PUBLIC********************************************/
+    /* constructor, depth is the number of moves to look
+    /* ahead
+    /****************************************************/
+    public SearchEngine(int depth) {
+        this(depth, DEFAULT_TABLE_MEGABYTES);
+    }
+
+    /**PUBLIC********************************************/
+    /* constructor, depth is the number of moves to look
+    /* ahead and tableMegabytes the memory budget of the
+    /* transposition table
+    /****************************************************/
+    public SearchEngine(int depth, int tableMegabytes) {
+        this(depth, new TranspositionTable(tableMegabytes));
+    }
+
+    /*==PRIVATE==========================================*/
+    /* constructor for helpers, which share the main
+    /* engine's table
+    /*===================================================*/
+    private SearchEngine(int depth, TranspositionTable table) {
+        setDepth(depth);
+        this.table = table;
+    }
+
+    /**PUBLIC********************************************/
+    /* sets the number of moves to look ahead, at least 1
+    /****************************************************/
+    public void setDepth(int depth) {
+        this.depth = Math.max(1, Math.min(depth, MAX_PLY));
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the number of moves to look ahead
+    /****************************************************/
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the number of positions visited by the last
+    /* call to findBestMove
+    /****************************************************/
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    /**PUBLIC********************************************/
+    /* sets the longest time in milliseconds a search may
+    /* take, 0 for no limit
+    /****************************************************/
+    public void setTimeLimit(long milliseconds) {
+        this.timeLimit = Math.max(0, milliseconds);
+    }
+
+    /**PUBLIC********************************************/
+    /* sets the most positions a search may visit, 0 for
+    /* no limit
+    /****************************************************/
+    public void setNodeLimit(long nodes) {
+        this.nodeLimit = Math.max(0, nodes);
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the deepest search the last call to
+    /* findBestMove completed
+    /****************************************************/
+    public int getCompletedDepth() {
+        return this.completedDepth;
+    }
+
+    /**PUBLIC********************************************/
+    /* sets the number of threads to search with, at least 1.
+    /* Must not be called during a search.
+    /****************************************************/
+    public void setThreads(int threads) {
+        threads = Math.max(1, threads);
+        if (threads - 1 == this.helpers.length)
+            return;
+
+        //replace the helpers and their threads
+        shutdown();
+        this.helpers = new SearchEngine[threads - 1];
+        for (int i = 0; i < this.helpers.length; i++)
+            this.helpers[i] = new SearchEngine(this.depth, this.table);
+        if (threads > 1) {
+            this.helperThreads = Executors.newFixedThreadPool(threads - 1, new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "SearchEngine helper");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the number of threads searched with
+    /****************************************************/
+    public int getThreads() {
+        return this.helpers.length + 1;
+    }
+
+    /**PUBLIC********************************************/
+    /* ends the helper threads, later searches use only the
+    /* calling thread
+    /****************************************************/
+    public void shutdown() {
+        if (this.helperThreads != null)
+            this.helperThreads.shutdownNow();
+        this.helperThreads = null;
+        this.helpers = new SearchEngine[0];
+    }
+
+    /**PUBLIC********************************************/
+    /* asks the running search to return as soon as it can,
+    /* called from another thread. The search returns the
+    /* best move of its last completed iteration.
+    /****************************************************/
+    public void stop() {
+        this.stopRequested = true;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the best packed move for the player whose
+    /* turn it is, or NO_MOVE if there are none. The model
+    /* is returned to its original position.
+    /****************************************************/
+    public long findBestMove(CheckersModel model) {
+        long start = System.nanoTime();
+        long bestMove = search(model);
+        Metrics.searchFinished(this.pondering, System.nanoTime() - start, this.nodes, this.moveGenerations,
+                this.tableProbes, this.tableHits, this.tableStores, this.tableCollisions);
+        return bestMove;
+    }
+
+    /**PUBLIC********************************************/
+    /* searches the position with no time or node limit,
+    /* until the depth is reached, stop() is called or the
+    /* thread is interrupted, to fill the table for a later
+    /* findBestMove. The model is left unchanged.
+    /****************************************************/
+    public void ponder(CheckersModel model) {
+        long savedTimeLimit = this.timeLimit;
+        long savedNodeLimit = this.nodeLimit;
+        this.timeLimit = 0;
+        this.nodeLimit = 0;
+        this.pondering = true;
+        try {
+            findBestMove(model);
+        } finally {
+            this.timeLimit = savedTimeLimit;
+            this.nodeLimit = savedNodeLimit;
+            this.pondering = false;
+        }
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the legal move the table holds as best for
+    /* the position, or NO_MOVE if it holds none. Must not
+    /* be called during a search.
+    /****************************************************/
+    public long getExpectedMove(CheckersModel model) {
+        long entry = this.table.probe(model.getHash());
+        if (entry == 0 || TranspositionTable.getMove(entry) == 0)
+            return NO_MOVE;
+        long[] moves = this.moveLists[0];
+        int numberOfMoves = model.generateMoves(moves);
+        for (int i = 0; i < numberOfMoves; i++)
+            if (Move.getKey(moves[i]) == TranspositionTable.getMove(entry))
+                return moves[i];
+        return NO_MOVE;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the score of the position for the player
+    /* whose turn it is, positive if they are ahead. The
+    /* model's own square score is used if it has the same
+    /* weights, so the score takes constant time.
+    /****************************************************/
+    public int evaluate(CheckersModel model) {
+        EvaluationWeights weights = this.weights;
+
+        //material and position, every term that depends only on a piece and its square
+        int score = model.getWeights() == weights ? model.getSquareScore()
+                : weights.scorePieces(model.getWhitePieces(), model.getBlackPieces(), model.getKingPieces());
+
+        //mobility
+        if (weights.mobility != 0)
+            score += weights.mobility * (model.countSteps(true) - model.countSteps(false));
+
+        return model.isWhiteTurn ? score : -score;
+    }
+
+    /**PUBLIC********************************************/
+    /* sets the weights positions are scored with, and
+    /* returns them. Must not be called during a search.
+    /****************************************************/
+    public void setWeights(EvaluationWeights weights) {
+        this.weights = weights;
+    }
+
+    public EvaluationWeights getWeights() {
+        return this.weights;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* runs findBestMove's search, adding the helpers'
+    /* counts to this engine's
+    /*===================================================*/
+    private long search(CheckersModel model) {
+        resetCounts();
+        this.nodes = 1;
+        this.aborted = false;
+        this.stopRequested = false;
+        this.completedDepth = 0;
+        this.deadline = System.nanoTime() + this.timeLimit * 1000000L;
+        this.table.newSearch();
+        long[] moves = this.moveLists[0];
+        int numberOfMoves = model.generateMoves(moves);
+        this.moveGenerations++;
+        if (numberOfMoves == 0)
+            return NO_MOVE;
+
+        //a forced move needs no search
+        if (numberOfMoves == 1) {
+            this.completedDepth = this.depth;
+            return moves[0];
+        }
+
+        //search one move deeper each time, until the depth is reached or the time or nodes run out
+        Future<?>[] runningHelpers = startHelpers(model);
+        long bestMove = moves[0];
+        try {
+            for (int depth = 1; depth <= this.depth; depth++) {
+                SearchIterationEvent event = new SearchIterationEvent();
+                event.begin();
+                long move = searchRoot(model, moves, numberOfMoves, depth);
+                event.end();
+                if (event.shouldCommit()) {
+                    event.depth = depth;
+                    event.nodes = this.nodes;
+                    event.move = PdnWriter.moveToString(model, move);
+                    event.completed = !this.aborted;
+                    event.commit();
+                }
+                if (this.aborted)
+                    break;
+                bestMove = move;
+                this.completedDepth = depth;
+            }
+        } finally {
+            stopHelpers(runningHelpers);
+        }
+        return bestMove;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* starts each helper searching its own copy of the
+    /* model, and returns their running tasks
+    /*===================================================*/
+    private Future<?>[] startHelpers(CheckersModel model) {
+        Future<?>[] running = new Future<?>[this.helpers.length];
+        for (int i = 0; i < this.helpers.length; i++) {
+            final SearchEngine helper = this.helpers[i];
+            final CheckersModel copy = new CheckersModel(model);
+            final int firstDepth = 1 + i % 2;
+            helper.depth = this.depth;
+            helper.weights = this.weights;
+            helper.stopRequested = false;
+            running[i] = this.helperThreads.submit(new Runnable() {
+                public void run() {
+                    helper.helperSearch(copy, firstDepth);
+                }
+            });
+        }
+        return running;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* stops the helpers, waits for them to finish and adds
+    /* their nodes and counts to this engine's
+    /*===================================================*/
+    private void stopHelpers(Future<?>[] running) {
+        for (SearchEngine helper : this.helpers)
+            helper.stop();
+
+        //wait even if this thread is interrupted, so no helper is still searching when the next search starts
+        boolean interrupted = false;
+        for (int i = 0; i < running.length; i++) {
+            while (true) {
+                try {
+                    running[i].get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Search helper failed", e.getCause());
+                }
+            }
+            this.nodes += this.helpers[i].nodes;
+            this.moveGenerations += this.helpers[i].moveGenerations;
+            this.tableProbes += this.helpers[i].tableProbes;
+            this.tableHits += this.helpers[i].tableHits;
+            this.tableStores += this.helpers[i].tableStores;
+            this.tableCollisions += this.helpers[i].tableCollisions;
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /*==PRIVATE==========================================*/
+    /* iteratively deepens from firstDepth until stopped,
+    /* run by helpers only
+    /*===================================================*/
+    private void helperSearch(CheckersModel model, int firstDepth) {
+        resetCounts();
+        this.nodes = 0;
+        this.aborted = false;
+        int numberOfMoves = model.generateMoves(this.moveLists[0]);
+        this.moveGenerations++;
+        for (int depth = firstDepth; depth <= this.depth && !this.aborted && numberOfMoves > 0; depth++)
+            searchRoot(model, this.moveLists[0], numberOfMoves, depth);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* searches each root move to the passed depth, and
+    /* returns the best. The table's best move (the best
+    /* move of the last iteration) is searched first.
+    /*===================================================*/
+    private long searchRoot(CheckersModel model, long[] moves, int numberOfMoves, int depth) {
+        long entry = probe(model.getHash());
+        if (entry != 0)
+            moveToFront(moves, numberOfMoves, TranspositionTable.getMove(entry));
+
+        //search each move with a full window on the first and a narrowing window after
+        long bestMove = moves[0];
+        int alpha = -INFINITY;
+        for (int i = 0; i < numberOfMoves; i++) {
+            model.makeMove(moves[i]);
+            int score = -negamax(model, depth - 1, 1, -INFINITY, -alpha);
+            model.unmakeMove();
+            if (this.aborted)
+                return bestMove;
+
+            if (score > alpha) {
+                alpha = score;
+                bestMove = moves[i];
+            }
+        }
+        store(model.getHash(), depth, TranspositionTable.EXACT, alpha, Move.getKey(bestMove));
+        return bestMove;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns true if the search has used up its time or
+    /* nodes, or has been stopped or interrupted. The clock
+    /* and stop flags are only read every 1024 nodes.
+    /*===================================================*/
+    private boolean isOutOfBudget() {
+        if (this.nodeLimit > 0 && this.nodes >= this.nodeLimit)
+            return true;
+        if ((this.nodes & 1023) != 0)
+            return false;
+        return this.stopRequested || Thread.currentThread().isInterrupted()
+                || (this.timeLimit > 0 && System.nanoTime() - this.deadline > 0);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the score of the position for the player to
+    /* move, searching depth more moves. Scores outside of
+    /* (alpha,beta) are not exact.
+    /*===================================================*/
+    private int negamax(CheckersModel model, int depth, int ply, int alpha, int beta) {
+        this.nodes++;
+
+        //give up once out of time or nodes, the result is thrown away
+        if (this.aborted || isOutOfBudget()) {
+            this.aborted = true;
+            return 0;
+        }
+
+        //use the table's result if the position was already searched deep enough
+        long hash = model.getHash();
+        long entry = probe(hash);
+        int tableMove = 0;
+        if (entry != 0) {
+            tableMove = TranspositionTable.getMove(entry);
+            if (TranspositionTable.getDepth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.getScore(entry), ply);
+                int bound = TranspositionTable.getBound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && score <= alpha))
+                    return score;
+            }
+        }
+
+        //the player to move loses if they have no moves, sooner losses are worse
+        long[] moves = this.moveLists[ply];
+        int numberOfMoves = model.generateMoves(moves);
+        this.moveGenerations++;
+        if (numberOfMoves == 0)
+            return -WIN + ply;
+
+        //stop at the depth limit once no jumps are pending
+        if ((depth <= 0 && !Move.isJump(moves[0])) || ply >= MAX_PLY)
+            return evaluate(model);
+
+        //search the table's best move first
+        moveToFront(moves, numberOfMoves, tableMove);
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        long bestMove = NO_MOVE;
+        for (int i = 0; i < numberOfMoves; i++) {
+            model.makeMove(moves[i]);
+            int score = -negamax(model, depth - 1, ply + 1, -beta, -alpha);
+            model.unmakeMove();
+            if (this.aborted)
+                return 0;
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = moves[i];
+            }
+            if (score > alpha)
+                alpha = score;
+
+            //the opponent will avoid this line, so stop searching it
+            if (alpha >= beta)
+                break;
+        }
+
+        //remember the result, and whether it is exact or only a bound
+        int bound = TranspositionTable.EXACT;
+        if (bestScore >= beta)
+            bound = TranspositionTable.LOWER_BOUND;
+        else if (bestScore <= originalAlpha)
+            bound = TranspositionTable.UPPER_BOUND;
+        store(hash, Math.max(depth, 0), bound, toTable(bestScore, ply), Move.getKey(bestMove));
+        return bestScore;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* probes the table, counting the probe and whether it
+    /* hit
+    /*===================================================*/
+    private long probe(long hash) {
+        long entry = this.table.probe(hash);
+        this.tableProbes++;
+        if (entry != 0)
+            this.tableHits++;
+        return entry;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* stores a result in the table, counting the store and
+    /* whether it replaced another position's entry
+    /*===================================================*/
+    private void store(long hash, int depth, int bound, int score, int moveKey) {
+        this.tableStores++;
+        if (this.table.store(hash, depth, bound, score, moveKey))
+            this.tableCollisions++;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* sets the counts kept for Metrics back to 0
+    /*===================================================*/
+    private void resetCounts() {
+        this.moveGenerations = 0;
+        this.tableProbes = 0;
+        this.tableHits = 0;
+        this.tableStores = 0;
+        this.tableCollisions = 0;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* moves the move with the passed key (see Move.getKey)
+    /* to the front of the list, if it is in the list
+    /*===================================================*/
+    private static void moveToFront(long[] moves, int numberOfMoves, int key) {
+        if (key == 0)
+            return;
+        for (int i = 1; i < numberOfMoves; i++) {
+            if (Move.getKey(moves[i]) == key) {
+                long move = moves[i];
+                moves[i] = moves[0];
+                moves[0] = move;
+                return;
+            }
+        }
+    }
+
+    /*==PRIVATE==========================================*/
+    /* win scores depend on how many moves away the win is,
+    /* so they are stored relative to the position (toTable)
+    /* and made relative to the root again when read
+    /*===================================================*/
+    private static int toTable(int score, int ply) {
+        if (score > WIN - MAX_PLY)
+            return score + ply;
+        if (score < -WIN + MAX_PLY)
+            return score - ply;
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score > WIN - MAX_PLY)
+            return score - ply;
+        if (score < -WIN + MAX_PLY)
+            return score + ply;
+        return score;
+    }
+}
@@ -0,0 +1,38 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("checkers.SearchIteration")
+@Label("Search Iteration")
+@Category({"Checkers", "Search"})
+@Description("One iteration of the SearchEngine's iterative deepening, on the main search thread")
+@StackTrace(false)
+public class SearchIterationEvent extends Event {
+
+    /* This class is the Java Flight Recorder event of one iteration of a search: searching every root move
+     * to one more move of depth. It shows where the time of a computer move goes, iteration by iteration,
+     * and whether the last one ran out of time. It costs nothing when not recorded, see ComputerMoveEvent.
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Nodes")
+    @Description("Positions the main thread had visited by the end of the iteration")
+    long nodes;
+
+    @Label("Best Move")
+    @Description("Best move of the iteration in PDN, not used if the iteration was not completed")
+    String move;
+
+    @Label("Completed")
+    @Description("False if the iteration ran out of time or nodes, or was stopped")
+    boolean completed;
+}
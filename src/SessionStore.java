@@ -0,0 +1,350 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SessionStore {
+
+    /* This class keeps the games of a CheckersServer, so that idle games don't hold their CheckersModel,
+     * with its undo stacks and move buffer, in memory for ever.
+     *
+     * A game in use is an active session: its model is kept in a LinkedHashMap in order of last use, with
+     * the time it was last used. A session is stored when there are more than maxActive active sessions and
+     * it is the least recently used, or when evictIdle() finds it unused for idleMillis. Storing appends the
+     * game's starting position and moves to a GameArchive, the spill file, and forgets the model; all that
+     * stays in memory is the game's number in the archive, in an open addressing table of game ids, about
+     * 24 bytes a game. get(id:long) reads a stored game back and replays its moves, so the model it returns
+     * can still take its moves back, and makes it active again.
+     *
+     * The spill file is only appended to, so a game stored again after being read back takes new space, and
+     * the records of games read back or removed are dead. Once there are more dead records than stored games,
+     * and at least MIN_COMPACT_GAMES of them, the stored games are copied to a new spill file that replaces
+     * the old one, the passed file's name and that name followed by .compact taking turns, so the file stays
+     * in proportion to the games stored however many times sessions are stored and read back. Copying a game
+     * costs about as much as storing it, and each copy follows at least as many dead records, so a long
+     * running server pays a constant time per game stored. If the copy fails, the old spill file is kept and
+     * the copy is tried again later. Both spill files are emptied when the store is opened and deleted when
+     * it is closed.
+     *
+     * The public interface consists of:
+     *      Constructor taking the spill file, the most active sessions and the milliseconds a session may
+     *          be idle before it is stored
+     *      add(model:CheckersModel) adds a game and returns its id
+     *      get(id:long) returns a game's model, reading it back if it was stored, or null if there is none
+     *      remove(id:long) forgets a game, returns false if there was none
+     *      evictIdle() stores the sessions idle for longer than idleMillis, returns how many
+     *      size(), getActiveCount() and getStoredCount() return the number of games, in memory and stored
+     *      close() closes and deletes the spill file
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    private static final int MIN_TABLE_SIZE = 1024;
+    private static final int MIN_COMPACT_GAMES = 1024; //dead records in the spill file before it is compacted
+
+    private File spillFile; //file of the stored games
+    private File compactFile; //file they are copied to when compacted, the two swap after each copy
+    private GameArchive spill; //stored games
+    private final int maxActive;
+    private final long idleMillis;
+    private long nextId = 1;
+
+    //models of the active sessions, least recently used first
+    private final LinkedHashMap<Long, Session> active = new LinkedHashMap<Long, Session>(16, 0.75f, true);
+
+    //stored games: the game's number in the spill file under its id, in an open addressing table with
+    //linear probing, an id of 0 marking a free slot. The table is never more than half full.
+    private long[] storedIds = new long[MIN_TABLE_SIZE];
+    private int[] storedGames = new int[MIN_TABLE_SIZE];
+    private int storedCount = 0;
+
+    //an active session's model, and when it was last used
+    private static class Session {
+        final CheckersModel model;
+        long lastUsed;
+
+        Session(CheckersModel model, long lastUsed) {
+            this.model = model;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    /**PUBLIC********************************************/
+    /* constructor, takes the spill file, which is emptied,
+    /* the most sessions kept in memory, and the time after
+    /* which an unused session is stored
+    /****************************************************/
+    public SessionStore(File spillFile, int maxActive, long idleMillis) throws IOException {
+        this.spillFile = spillFile;
+        this.compactFile = new File(spillFile.getPath() + ".compact");
+        deleteSpill(spillFile);
+        deleteSpill(this.compactFile);
+        this.spill = new GameArchive(spillFile);
+        this.maxActive = Math.max(1, maxActive);
+        this.idleMillis = idleMillis;
+    }
+
+    /**PUBLIC********************************************/
+    /* adds a game as an active session, and returns its id
+    /****************************************************/
+    public synchronized long add(CheckersModel model) throws IOException {
+        long id = this.nextId++;
+        this.active.put(id, new Session(model, System.currentTimeMillis()));
+        evictOverflow();
+        return id;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the model of a game, reading it back from
+    /* the spill file if it was stored, or null if there is
+    /* no such game
+    /****************************************************/
+    public synchronized CheckersModel get(long id) throws IOException {
+        Session session = this.active.get(id);
+        if (session != null) {
+            session.lastUsed = System.currentTimeMillis();
+            return session.model;
+        }
+
+        int slot = findSlot(id);
+        if (this.storedIds[slot] == 0)
+            return null;
+        int game = this.storedGames[slot];
+        CheckersModel model = new CheckersModel();
+        long[] moves = new long[this.spill.getNumberOfMoves(game)];
+        int numberOfMoves = this.spill.readGame(game, model, moves);
+        for (int i = 0; i < numberOfMoves; i++)
+            model.makeMove(moves[i]);
+
+        removeSlot(slot);
+        this.active.put(id, new Session(model, System.currentTimeMillis()));
+        evictOverflow();
+        compactIfWasteful();
+        return model;
+    }
+
+    /**PUBLIC********************************************/
+    /* forgets a game, returns false if there was none
+    /****************************************************/
+    public synchronized boolean remove(long id) {
+        if (this.active.remove(id) != null)
+            return true;
+        int slot = findSlot(id);
+        if (this.storedIds[slot] == 0)
+            return false;
+        removeSlot(slot);
+        compactIfWasteful();
+        return true;
+    }
+
+    /**PUBLIC********************************************/
+    /* stores every session unused for longer than
+    /* idleMillis, and returns how many were stored
+    /****************************************************/
+    public synchronized int evictIdle() throws IOException {
+        long oldest = System.currentTimeMillis() - this.idleMillis;
+        int evicted = 0;
+        Iterator<Map.Entry<Long, Session>> sessions = this.active.entrySet().iterator();
+        while (sessions.hasNext()) {
+            Map.Entry<Long, Session> entry = sessions.next();
+            //sessions are in order of last use, so the rest were used more recently
+            if (entry.getValue().lastUsed > oldest)
+                break;
+            store(entry.getKey(), entry.getValue().model);
+            sessions.remove();
+            evicted++;
+        }
+        return evicted;
+    }
+
+    /**PUBLIC********************************************/
+    /* return the number of games, the number in memory,
+    /* and the number stored in the spill file
+    /****************************************************/
+    public synchronized int size() {
+        return this.active.size() + this.storedCount;
+    }
+
+    public synchronized int getActiveCount() {
+        return this.active.size();
+    }
+
+    public synchronized int getStoredCount() {
+        return this.storedCount;
+    }
+
+    /**PUBLIC********************************************/
+    /* closes and deletes the spill file, the stored games
+    /* are lost
+    /****************************************************/
+    public synchronized void close() throws IOException {
+        try {
+            this.spill.close();
+        } finally {
+            deleteSpill(this.spillFile);
+            deleteSpill(this.compactFile);
+        }
+    }
+
+    /*==PRIVATE==========================================*/
+    /* stores least recently used sessions while there are
+    /* more than maxActive
+    /*===================================================*/
+    private void evictOverflow() throws IOException {
+        Iterator<Map.Entry<Long, Session>> sessions = this.active.entrySet().iterator();
+        while (this.active.size() > this.maxActive) {
+            Map.Entry<Long, Session> entry = sessions.next();
+            store(entry.getKey(), entry.getValue().model);
+            sessions.remove();
+        }
+    }
+
+    /*==PRIVATE==========================================*/
+    /* appends a game to the spill file and remembers its
+    /* number there under its id
+    /*===================================================*/
+    private void store(long id, CheckersModel model) throws IOException {
+        CheckersModel start = new CheckersModel();
+        long[] moves = model.getHistory(start);
+        int result = GameArchive.UNFINISHED;
+        if (model.isGameOver())
+            result = model.winner().equals("WHITE") ? GameArchive.WHITE_WINS : GameArchive.BLACK_WINS;
+        int game = this.spill.append(start, moves, moves.length, result, System.currentTimeMillis());
+
+        //keep the table at most half full
+        if ((this.storedCount + 1) * 2 > this.storedIds.length)
+            resizeTable(this.storedIds.length * 2);
+        int slot = findSlot(id);
+        this.storedIds[slot] = id;
+        this.storedGames[slot] = game;
+        this.storedCount++;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* copies the stored games to a new spill file if the
+    /* old one holds more dead records than stored games.
+    /* A failed copy is reported and the old file kept.
+    /*===================================================*/
+    private void compactIfWasteful() {
+        int dead = this.spill.size() - this.storedCount;
+        if (dead < MIN_COMPACT_GAMES || dead <= this.storedCount)
+            return;
+
+        //copy each stored game, remembering its new number apart until every game is copied
+        int[] games = this.storedGames.clone();
+        GameArchive compacted = null;
+        try {
+            compacted = new GameArchive(this.compactFile);
+            CheckersModel start = new CheckersModel();
+            for (int slot = 0; slot < this.storedIds.length; slot++) {
+                if (this.storedIds[slot] == 0)
+                    continue;
+                int game = this.storedGames[slot];
+                long[] moves = new long[this.spill.getNumberOfMoves(game)];
+                int numberOfMoves = this.spill.readGame(game, start, moves);
+                games[slot] = compacted.append(start, moves, numberOfMoves, this.spill.getResult(game),
+                        this.spill.getPlayedMillis(game));
+            }
+        } catch (IOException e) {
+            System.err.println("compacting " + this.spillFile + " failed: " + e);
+            if (compacted != null) {
+                try {
+                    compacted.close();
+                } catch (IOException closeFailure) {
+                    //the file is deleted anyway
+                }
+            }
+            deleteSpill(this.compactFile);
+            return;
+        }
+
+        //the copy becomes the spill file, and the old file is deleted
+        GameArchive old = this.spill;
+        File oldFile = this.spillFile;
+        this.spill = compacted;
+        this.storedGames = games;
+        this.spillFile = this.compactFile;
+        this.compactFile = oldFile;
+        try {
+            old.close();
+        } catch (IOException e) {
+            //its games are all copied
+        }
+        deleteSpill(oldFile);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the slot holding the id, or the free slot
+    /* where it would go
+    /*===================================================*/
+    private int findSlot(long id) {
+        int mask = this.storedIds.length - 1;
+        int slot = homeSlot(id, mask);
+        while (this.storedIds[slot] != 0 && this.storedIds[slot] != id)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns the slot an id is looked for from, its bits
+    /* mixed so consecutive ids spread over the table
+    /*===================================================*/
+    private static int homeSlot(long id, int mask) {
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* frees a slot, moving back later ids of the same run
+    /* so that every id can still be found from its own slot
+    /*===================================================*/
+    private void removeSlot(int slot) {
+        int mask = this.storedIds.length - 1;
+        int free = slot;
+        int next = (slot + 1) & mask;
+        while (this.storedIds[next] != 0) {
+            int home = homeSlot(this.storedIds[next], mask);
+            //move the id back into the free slot unless its home lies after the free slot in the run
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                this.storedIds[free] = this.storedIds[next];
+                this.storedGames[free] = this.storedGames[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        this.storedIds[free] = 0;
+        this.storedCount--;
+
+        //shrink the table again once most games have been read back
+        if (this.storedIds.length > MIN_TABLE_SIZE && this.storedCount * 8 < this.storedIds.length)
+            resizeTable(this.storedIds.length / 2);
+    }
+
+    /*==PRIVATE==========================================*/
+    /* moves the stored games into a table of the passed
+    /* size, a power of 2
+    /*===================================================*/
+    private void resizeTable(int size) {
+        long[] ids = this.storedIds;
+        int[] games = this.storedGames;
+        this.storedIds = new long[size];
+        this.storedGames = new int[size];
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == 0)
+                continue;
+            int slot = findSlot(ids[i]);
+            this.storedIds[slot] = ids[i];
+            this.storedGames[slot] = games[i];
+        }
+    }
+
+    /*==PRIVATE==========================================*/
+    /* deletes a spill file and its index
+    /*===================================================*/
+    private static void deleteSpill(File file) {
+        file.delete();
+        new File(file.getPath() + ".idx").delete();
+    }
+}
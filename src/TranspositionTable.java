@@ -0,0 +1,169 @@
+import java.util.Arrays;
+
+public class TranspositionTable {
+
+    /* This class remembers the results of positions the SearchEngine has already searched, so the
+     * same position reached through a different order of moves isn't searched twice.
+     *
+     * Entries are looked up by the position's Zobrist hash (see CheckersModel.getHash). The table
+     * is a fixed number of 2-entry buckets, sized to fit the memory budget passed to the
+     * constructor. Each entry is two longs, a check word and a packed data word:
+     *      bits 0-23   key of the best move found (see Move.getKey, 0 if none)
+     *      bits 24-44  score, signed
+     *      bits 45-52  depth the position was searched to
+     *      bits 53-54  bound type, EXACT, LOWER_BOUND or UPPER_BOUND
+     *      bits 55-62  generation (search number) the entry was stored in
+     *      bit 63      set in every stored entry, so 0 means no entry
+     *
+     * The check word is the position's hash XORed with the data word. Several search threads can
+     * share one table without locking: if two threads write the same entry at once and its two
+     * words come from different writes, the check word no longer matches and the entry is treated
+     * as empty instead of returning another position's data.
+     *
+     * When a new entry doesn't fit in its bucket, the entry searched least deeply is replaced,
+     * counting entries from earlier searches as shallower the older they are.
+     *
+     * The public interface consists of:
+     *      Constructor taking the memory budget in megabytes
+     *      clear() empties the table
+     *      newSearch() starts a new generation, so older entries are replaced first
+     *      probe(hash:long) returns the data word stored for the position, or 0 if none
+     *      store(hash:long, depth:int, bound:int, score:int, moveKey:int) stores a search result, returns
+     *          true if it replaced another position's entry, a collision
+     *      getMove(data:long), getScore(data:long), getDepth(data:long), getBound(data:long) unpack a
+     *          data word returned by probe
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    //bound types, whether the stored score is exact or only a bound on the real score
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    private static final int BYTES_PER_ENTRY = 16;
+    private static final long VALID_FLAG = 1L << 63;
+
+    private final long[] checks; //hash of each entry's position XOR its data word
+    private final long[] data; //packed data word of each entry
+    private final int bucketMask; //index of the first entry of a bucket is hash & bucketMask
+    private int generation = 0; //number of the current search, wraps at 256
+
+    /**PUBLIC********************************************/
+    /* constructor, uses the largest power of two number of
+    /* entries that fits in the passed number of megabytes
+    /****************************************************/
+    public TranspositionTable(int megabytes) {
+        long budget = Math.max(1, megabytes) * 1024L * 1024L / BYTES_PER_ENTRY;
+        int numberOfEntries = Integer.highestOneBit((int) Math.min(budget, 1 << 30));
+        this.checks = new long[numberOfEntries];
+        this.data = new long[numberOfEntries];
+        this.bucketMask = (numberOfEntries - 1) & ~1;
+    }
+
+    /**PUBLIC********************************************/
+    /* removes all entries from the table
+    /****************************************************/
+    public void clear() {
+        Arrays.fill(this.checks, 0);
+        Arrays.fill(this.data, 0);
+    }
+
+    /**PUBLIC********************************************/
+    /* starts a new generation, called at the start of
+    /* every search
+    /****************************************************/
+    public void newSearch() {
+        this.generation = (this.generation + 1) & 0xFF;
+    }
+
+    /**PUBLIC********************************************/
+    /* returns the data word stored for the position with
+    /* the passed hash, or 0 if there is none
+    /****************************************************/
+    public long probe(long hash) {
+        int index = (int) hash & this.bucketMask;
+        long first = this.data[index];
+        if (first != 0 && (this.checks[index] ^ first) == hash)
+            return first;
+        long second = this.data[index + 1];
+        if (second != 0 && (this.checks[index + 1] ^ second) == hash)
+            return second;
+        return 0;
+    }
+
+    /**PUBLIC********************************************/
+    /* stores the result of searching the position with the
+    /* passed hash, replacing its old entry if it has one.
+    /* Returns true if another position's entry was lost.
+    /****************************************************/
+    public boolean store(long hash, int depth, int bound, int score, int moveKey) {
+        int index = (int) hash & this.bucketMask;
+
+        //reuse the position's entry if it has one, otherwise replace the least useful entry
+        long first = this.data[index];
+        long second = this.data[index + 1];
+        int replace;
+        long old;
+        boolean collision = false;
+        if ((this.checks[index] ^ first) == hash) {
+            replace = index;
+            old = first;
+        }
+        else if ((this.checks[index + 1] ^ second) == hash) {
+            replace = index + 1;
+            old = second;
+        }
+        else {
+            replace = worth(first) <= worth(second) ? index : index + 1;
+            old = 0;
+            collision = this.data[replace] != 0;
+        }
+
+        //keep the old best move if this search didn't find one
+        if (moveKey == 0 && old != 0)
+            moveKey = getMove(old);
+
+        long entry = VALID_FLAG
+                | (moveKey & 0xFFFFFFL)
+                | ((long) (score & 0x1FFFFF) << 24)
+                | ((long) (depth & 0xFF) << 45)
+                | ((long) (bound & 0x3) << 53)
+                | ((long) this.generation << 55);
+        this.data[replace] = entry;
+        this.checks[replace] = hash ^ entry;
+        return collision;
+    }
+
+    /**PUBLIC********************************************/
+    /* unpack a data word returned by probe
+    /****************************************************/
+    public static int getMove(long data) {
+        return (int) (data & 0xFFFFFF);
+    }
+
+    public static int getScore(long data) {
+        return (int) (data << 19 >> 43);
+    }
+
+    public static int getDepth(long data) {
+        return (int) (data >>> 45) & 0xFF;
+    }
+
+    public static int getBound(long data) {
+        return (int) (data >>> 53) & 0x3;
+    }
+
+    /*==PRIVATE==========================================*/
+    /* returns how useful an entry is to keep, its depth
+    /* less how many searches ago it was stored
+    /*===================================================*/
+    private int worth(long data) {
+        if (data == 0)
+            return Integer.MIN_VALUE;
+        int age = (this.generation - ((int) (data >>> 55) & 0xFF)) & 0xFF;
+        return getDepth(data) - age * 4;
+    }
+}
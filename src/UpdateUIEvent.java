@@ -0,0 +1,24 @@
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("checkers.UpdateUI")
+@Label("Update UI")
+@Category({"Checkers", "UI"})
+@StackTrace(false)
+public class UpdateUIEvent extends Event {
+
+    /* This class is the Java Flight Recorder event of CheckersViewController.updateUI, on the event
+     * dispatch thread. It costs nothing when not recorded, see ComputerMoveEvent. The squares are only
+     * asked to repaint here; the painting itself is timed by Metrics.REPAINT.
+     *
+     *------CHANGELOG REVISION 3 ----------------------------------------------------------------------
+     *      New class in revision 3
+     *-------------------------------------------------------------------------------------------------
+     */
+
+    @Label("Squares Repainted")
+    int squaresRepainted;
+}